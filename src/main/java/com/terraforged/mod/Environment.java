@@ -36,6 +36,14 @@ public interface Environment {
         return System.getProperty(flag) != null;
     }
 
+    static int getInt(String key, int defaultValue) {
+        return Integer.getInteger(key, defaultValue);
+    }
+
+    static String getString(String key, String defaultValue) {
+        return System.getProperty(key, defaultValue);
+    }
+
     static void log() {
         TerraForged.LOG.info("Environment:");
         TerraForged.LOG.info("- Dev:       {}", DEV_ENV);
@@ -36,6 +36,8 @@ import com.terraforged.engine.world.terrain.Terrain;
 import com.terraforged.engine.world.terrain.TerrainType;
 import com.terraforged.mod.worldgen.GeneratorPreset;
 import com.terraforged.mod.worldgen.Regenerator;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionQuality;
+import com.terraforged.mod.worldgen.util.ThreadPool;
 import net.minecraft.ChatFormatting;
 import net.minecraft.Util;
 import net.minecraft.commands.CommandSourceStack;
@@ -70,7 +72,21 @@ public class TFCommands {
                                 .executes(TFCommands::export)))
                 .then(Commands.literal("regen")
                         .then(net.minecraft.commands.Commands.argument("radius", IntegerArgumentType.integer(1))
-                                .executes(TFCommands::regen)));
+                                .executes(TFCommands::regen)))
+                .then(Commands.literal("stats")
+                        .then(Commands.literal("reset")
+                                .executes(TFCommands::resetStats)));
+    }
+
+    private static int resetStats(CommandContext<CommandSourceStack> context) {
+        ThreadPool.resetStats();
+
+        var result = new TextComponent("Reset world-gen thread pool stats")
+                .withStyle(s -> s.withColor(ChatFormatting.GREEN));
+
+        context.getSource().sendSuccess(result, false);
+
+        return Command.SINGLE_SUCCESS;
     }
 
     private static int regen(CommandContext<CommandSourceStack> context) {
@@ -109,27 +125,34 @@ public class TFCommands {
         int radius = withRadius ? IntegerArgumentType.getInteger(context, "radius") : 1;
 
         var player = context.getSource().getPlayerOrException();
+        var server = context.getSource().getServer();
         var at = player.blockPosition();
 
-        Component result;
         if (terrain == null) {
-            result = new TextComponent("Invalid terrain: " + name).withStyle(ChatFormatting.RED);
-        } else {
-            int maxRadius = Math.min(100, radius + 50);
-            long pos = generator.getNoiseGenerator().find(at.getX(), at.getZ(), radius, maxRadius, terrain);
-
-            if (pos == 0L) {
-                result = new TextComponent("Unable to locate terrain: " + name).withStyle(ChatFormatting.RED);
-            } else {
-                int x = PosUtil.unpackLeft(pos);
-                int z = PosUtil.unpackRight(pos);
-                int y = generator.getFirstFreeHeight(x, z, Heightmap.Types.MOTION_BLOCKING, player.level);
-
-                result = createTerrainTeleportMessage(at, x, y, z, terrain);
-            }
+            var result = new TextComponent("Invalid terrain: " + name).withStyle(ChatFormatting.RED);
+            player.sendMessage(result, ChatType.SYSTEM, Util.NIL_UUID);
+            return Command.SINGLE_SUCCESS;
         }
 
-        player.sendMessage(result, ChatType.SYSTEM, Util.NIL_UUID);
+        int maxRadius = Math.min(100, radius + 50);
+        long pos = generator.getNoiseGenerator().find(at.getX(), at.getZ(), radius, maxRadius, terrain);
+
+        if (pos == 0L) {
+            var result = new TextComponent("Unable to locate terrain: " + name).withStyle(ChatFormatting.RED);
+            player.sendMessage(result, ChatType.SYSTEM, Util.NIL_UUID);
+            return Command.SINGLE_SUCCESS;
+        }
+
+        int x = PosUtil.unpackLeft(pos);
+        int z = PosUtil.unpackRight(pos);
+
+        // The fast erosion tier gives a closer teleport height than the pre-erosion noise without
+        // generating the target chunk. The message is sent once it completes, on the server thread
+        generator.getSurfaceHeightAsync(x, z, ErosionQuality.FAST).whenComplete((y, error) -> server.execute(() -> {
+            int height = y != null ? y : generator.getFirstFreeHeight(x, z, Heightmap.Types.MOTION_BLOCKING, player.level);
+            var result = createTerrainTeleportMessage(at, x, height, z, terrain);
+            player.sendMessage(result, ChatType.SYSTEM, Util.NIL_UUID);
+        }));
 
         return Command.SINGLE_SUCCESS;
     }
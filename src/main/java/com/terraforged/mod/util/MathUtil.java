@@ -40,6 +40,14 @@ public class MathUtil {
         return value < min ? min : value > max ? max : value;
     }
 
+    // Catmull-Rom spline through p1 -> p2
+    public static float cubic(float p0, float p1, float p2, float p3, float t) {
+        float a = -0.5F * p0 + 1.5F * p1 - 1.5F * p2 + 0.5F * p3;
+        float b = p0 - 2.5F * p1 + 2F * p2 - 0.5F * p3;
+        float c = -0.5F * p0 + 0.5F * p2;
+        return ((a * t + b) * t + c) * t + p1;
+    }
+
     public static int hash(int seed, int x) {
         return NoiseUtil.hash(seed, x);
     }
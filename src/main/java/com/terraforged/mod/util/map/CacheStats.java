@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.util.map;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CacheStats {
+    private final String name;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CacheStats(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    public void miss() {
+        misses.incrementAndGet();
+    }
+
+    public void evict() {
+        evictions.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    public void reset() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    public void addDebugInfo(int size, int capacity, List<String> lines) {
+        lines.add(String.format("%s %s/%s (hit: %.1f%%, evicted: %s)", name, size, capacity, getHitRate() * 100, getEvictions()));
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "name=" + name +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+}
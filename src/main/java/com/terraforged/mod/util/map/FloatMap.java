@@ -39,6 +39,11 @@ public class FloatMap {
         this.data = new float[size * size];
     }
 
+    protected FloatMap(Index index, float[] data) {
+        this.index = index;
+        this.data = data;
+    }
+
     public Index index() {
         return index;
     }
@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.util.map;
+
+import java.util.Arrays;
+
+/**
+ * A float memo keyed by dense int indices. Each slot is stamped with the generation it was written
+ * in so that clearing is a single increment rather than a pass over the entries.
+ */
+public class IndexedFloatCache {
+    protected float[] values;
+    protected int[] stamps;
+    protected int generation = 1;
+
+    public IndexedFloatCache(int size) {
+        this.values = new float[size];
+        this.stamps = new int[size];
+    }
+
+    public void ensureCapacity(int size) {
+        if (values.length < size) {
+            values = Arrays.copyOf(values, size);
+            stamps = Arrays.copyOf(stamps, size);
+        }
+    }
+
+    public void clear() {
+        if (++generation == 0) {
+            // Stamps from the previous cycle would otherwise read as current
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    public void put(int index, float value) {
+        values[index] = value;
+        stamps[index] = generation;
+    }
+
+    public float get(int index) {
+        if (stamps[index] != generation) return Float.NaN;
+        return values[index];
+    }
+}
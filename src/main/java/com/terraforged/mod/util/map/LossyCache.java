@@ -27,43 +27,161 @@ package com.terraforged.mod.util.map;
 import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.longs.Long2ObjectFunction;
 import net.minecraft.util.Mth;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Consumer;
 import java.util.function.IntFunction;
 
+/**
+ * A fixed size cache that silently replaces entries on collision.
+ * <p>
+ * Entries are grouped into sets of 'ways' slots. A key may occupy any slot of the set it hashes to.
+ * New entries and hits are moved to the front of the set so that the least recently used entry is
+ * evicted when the set is full. With a single way the cache is direct-mapped.
+ */
 public class LossyCache<T> {
     protected final long[] keys;
     protected final T[] values;
     protected final int mask;
+    protected final int ways;
     protected final Consumer<T> removalListener;
-
-    private LossyCache(int capacity, IntFunction<T[]> constructor, Consumer<T> removalListener) {
-        capacity = Mth.smallestEncompassingPowerOfTwo(capacity);
-        this.mask = capacity - 1;
+    @Nullable
+    protected final CacheStats stats;
+
+    private LossyCache(int capacity, int ways, IntFunction<T[]> constructor, Consumer<T> removalListener, @Nullable CacheStats stats) {
+        ways = Mth.smallestEncompassingPowerOfTwo(Math.max(1, ways));
+        capacity = Mth.smallestEncompassingPowerOfTwo(Math.max(capacity, ways));
+        this.ways = ways;
+        this.mask = capacity / ways - 1;
         this.keys = new long[capacity];
         this.values = constructor.apply(capacity);
         this.removalListener = removalListener;
+        this.stats = stats;
         Arrays.fill(this.keys, Long.MIN_VALUE);
     }
 
-    public T computeIfAbsent(long key, Long2ObjectFunction<T> function) {
-        int hash = hash(key);
-        int index = hash & mask;
-        T value = values[index];
+    public int capacity() {
+        return values.length;
+    }
 
-        if (keys[index] == key && value != null) return value;
+    /**
+     * The number of occupied slots. This scans the cache so is intended for debug output only.
+     */
+    public int size() {
+        int size = 0;
+        for (var value : values) {
+            if (value != null) size++;
+        }
+        return size;
+    }
+
+    @Nullable
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public T computeIfAbsent(long key, Long2ObjectFunction<T> function) {
+        int set = getSet(key);
+        int index = find(key, set);
+
+        if (index != -1) {
+            onHit();
+            T value = values[index];
+            promote(index, set);
+            return value;
+        }
 
         T newValue = function.apply(key);
-        keys[index] = key;
-        values[index] = newValue;
+        T value = insert(key, newValue, set);
 
+        onMiss(value);
         onRemove(value);
 
         return newValue;
     }
 
+    /**
+     * Removes the entry for the key if it is still mapped to the given value. The removal listener
+     * is not notified.
+     */
+    public boolean remove(long key, T value) {
+        int set = getSet(key);
+        int index = find(key, set);
+        if (index == -1 || values[index] != value) return false;
+
+        // Close the gap so the remaining entries keep their order
+        int last = set + ways - 1;
+        System.arraycopy(keys, index + 1, keys, index, last - index);
+        System.arraycopy(values, index + 1, values, index, last - index);
+        keys[last] = Long.MIN_VALUE;
+        values[last] = null;
+
+        return true;
+    }
+
+    protected int getSet(long key) {
+        return (hash(key) & mask) * ways;
+    }
+
+    /**
+     * The slot holding the key within the set, or -1 if not present.
+     */
+    protected int find(long key, int set) {
+        for (int i = set, end = set + ways; i < end; i++) {
+            if (keys[i] == key && values[i] != null) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the entry in the given slot to the front of its set.
+     */
+    protected void promote(int index, int set) {
+        if (index == set) return;
+
+        long key = keys[index];
+        T value = values[index];
+        System.arraycopy(keys, set, keys, set + 1, index - set);
+        System.arraycopy(values, set, values, set + 1, index - set);
+        keys[set] = key;
+        values[set] = value;
+    }
+
+    /**
+     * Stores the value at the front of the set, returning the value evicted from the back (if any).
+     */
+    protected T insert(long key, T value, int set) {
+        int last = set + ways - 1;
+        T evicted = values[last];
+
+        if (ways > 1) {
+            System.arraycopy(keys, set, keys, set + 1, ways - 1);
+            System.arraycopy(values, set, values, set + 1, ways - 1);
+        }
+
+        keys[set] = key;
+        values[set] = value;
+
+        return evicted;
+    }
+
+    protected void onHit() {
+        if (stats != null) {
+            stats.hit();
+        }
+    }
+
+    protected void onMiss(T evicted) {
+        if (stats != null) {
+            stats.miss();
+            if (evicted != null) {
+                stats.evict();
+            }
+        }
+    }
+
     protected void onRemove(T value) {
         if (value != null) {
             removalListener.accept(value);
@@ -79,7 +197,7 @@ public class LossyCache<T> {
     }
 
     public static <T> LossyCache<T> of(int capacity, IntFunction<T[]> constructor, Consumer<T> removalListener) {
-        return new LossyCache<>(capacity, constructor, removalListener);
+        return new LossyCache<>(capacity, 1, constructor, removalListener, null);
     }
 
     public static <T> LossyCache<T> concurrent(int capacity, IntFunction<T[]> constructor) {
@@ -90,45 +208,79 @@ public class LossyCache<T> {
         return new LossyCache.Concurrent<>(capacity, constructor, removalListener);
     }
 
+    /**
+     * A concurrent cache with the given associativity, recording hits, misses & evictions to the
+     * stats if provided.
+     */
+    public static <T> LossyCache<T> concurrent(int capacity, int ways, IntFunction<T[]> constructor, Consumer<T> removalListener, @Nullable CacheStats stats) {
+        return new LossyCache.Concurrent<>(capacity, ways, constructor, removalListener, stats);
+    }
+
     public static class Concurrent<T> extends LossyCache<T> {
         protected final StampedLock lock = new StampedLock();
 
         public Concurrent(int capacity, IntFunction<T[]> constructor, Consumer<T> removalListener) {
-            super(capacity, constructor, removalListener);
+            this(capacity, 1, constructor, removalListener, null);
+        }
+
+        public Concurrent(int capacity, int ways, IntFunction<T[]> constructor, Consumer<T> removalListener, @Nullable CacheStats stats) {
+            super(capacity, ways, constructor, removalListener, stats);
         }
 
         @Override
         public T computeIfAbsent(long key, Long2ObjectFunction<T> allocator) {
-            final int hash = hash(key);
-            final int index = hash & mask;
+            final int set = getSet(key);
 
             // Try lock-free read first
             final long optiRead = lock.tryOptimisticRead();
-            final T optiValue = read(key, index);
+            final int optiIndex = find(key, set);
+            final T optiValue = optiIndex == -1 ? null : values[optiIndex];
 
             if (lock.validate(optiRead)) {
                 // Non-null if entry exists for key
-                if (optiValue != null) return optiValue;
+                if (optiValue != null) {
+                    onHit();
+
+                    // Promotion needs the write-lock so is skipped if another thread holds the lock
+                    if (optiIndex != set) {
+                        long write = lock.tryWriteLock();
+                        if (write != 0L) {
+                            promoteIfPresent(key, set);
+                            lock.unlockWrite(write);
+                        }
+                    }
+
+                    return optiValue;
+                }
 
                 // No value present so allocate/store a new one
-                return write(optiRead, key, index, allocator);
+                return write(optiRead, key, set, allocator);
             } else {
                 // Obtain full read-lock and check again
                 final long read = lock.readLock();
-                final T value = read(key, index);
+                final int index = find(key, set);
+                final T value = index == -1 ? null : values[index];
 
                 // Non-null if entry exists for key
                 if (value != null) {
-                    lock.unlockRead(read);
+                    long write = index != set ? lock.tryConvertToWriteLock(read) : 0L;
+                    if (write != 0L) {
+                        promote(index, set);
+                        lock.unlockWrite(write);
+                    } else {
+                        lock.unlockRead(read);
+                    }
+
+                    onHit();
                     return value;
                 }
 
                 // No value present so allocate/store a new one
-                return write(read, key, index, allocator);
+                return write(read, key, set, allocator);
             }
         }
 
-        protected T write(long read, long key, int index, Long2ObjectFunction<T> allocator) {
+        protected T write(long read, long key, int set, Long2ObjectFunction<T> allocator) {
             // Try to convert the read to a full write-lock
             long write = lock.tryConvertToWriteLock(read);
 
@@ -138,19 +290,23 @@ public class LossyCache<T> {
                     write = upgradeToWriteLock(read);
 
                     // Check if write occurred during the upgrade
-                    T value = read(key, index);
+                    T value = read(key, set);
 
                     // Non-null if entry now exists
-                    if (value != null) return value;
+                    if (value != null) {
+                        onHit();
+                        return value;
+                    }
                 }
 
-                // Notify removal of the current value
-                onRemove(values[index]);
+                // Notify removal of the entry about to be evicted from the set
+                T evicted = values[set + ways - 1];
+                onMiss(evicted);
+                onRemove(evicted);
 
                 // Allocate and store a new value
                 T value = allocator.apply(key);
-                keys[index] = key;
-                values[index] = value;
+                insert(key, value, set);
 
                 return value;
             } finally {
@@ -158,9 +314,28 @@ public class LossyCache<T> {
             }
         }
 
-        protected T read(long key, int index) {
-            // Value at index is valid only if the key at the same index matches
-            return key == keys[index] ? values[index] : null;
+        @Override
+        public boolean remove(long key, T value) {
+            long write = lock.writeLock();
+            try {
+                return super.remove(key, value);
+            } finally {
+                lock.unlockWrite(write);
+            }
+        }
+
+        protected void promoteIfPresent(long key, int set) {
+            // The entry may have moved or been evicted since the optimistic read
+            int index = find(key, set);
+            if (index != -1) {
+                promote(index, set);
+            }
+        }
+
+        protected T read(long key, int set) {
+            // Value in a slot is valid only if the key in the same slot matches
+            int index = find(key, set);
+            return index == -1 ? null : values[index];
         }
 
         protected long upgradeToWriteLock(long read) {
@@ -42,6 +42,11 @@ public class ObjectMap<T> {
         this.data = constructor.apply(size * size);
     }
 
+    protected ObjectMap(Index index, T[] data) {
+        this.index = index;
+        this.data = data;
+    }
+
     public Index getIndex() {
         return index;
     }
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.util.map;
+
+import com.terraforged.mod.TerraForged;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * An append-only, thread-safe table assigning a small dense index to each value it sees.
+ */
+public class Palette<T> {
+    private final int capacity;
+    private final T defaultValue;
+    private final IntFunction<T[]> constructor;
+    private final Map<T, Integer> indices = new ConcurrentHashMap<>();
+    private volatile T[] values;
+    private boolean overflowed;
+
+    public Palette(int capacity, T defaultValue, IntFunction<T[]> constructor) {
+        this.capacity = capacity;
+        this.constructor = constructor;
+        this.defaultValue = defaultValue;
+        this.values = constructor.apply(0);
+        getIndex(defaultValue);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isFull() {
+        return values.length >= capacity;
+    }
+
+    public T get(int index) {
+        var values = this.values;
+        return index < values.length ? values[index] : defaultValue;
+    }
+
+    /**
+     * The index assigned to the value, or -1 if the value is new & the palette is already full.
+     */
+    public int getIndex(T value) {
+        var index = indices.get(value);
+        if (index != null) return index;
+
+        synchronized (this) {
+            index = indices.get(value);
+            if (index != null) return index;
+
+            var values = this.values;
+            if (values.length >= capacity) {
+                if (!overflowed) {
+                    overflowed = true;
+                    TerraForged.LOG.warn("Palette is full ({} entries), values such as {} will be stored without it", capacity, value);
+                }
+                return -1;
+            }
+
+            var next = constructor.apply(values.length + 1);
+            System.arraycopy(values, 0, next, 0, values.length);
+            next[values.length] = value;
+
+            this.values = next;
+            indices.put(value, values.length);
+
+            return values.length;
+        }
+    }
+}
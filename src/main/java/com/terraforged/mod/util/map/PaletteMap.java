@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.util.map;
+
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * A chunk-sized ObjectMap that stores a byte index into a shared Palette for each column. If the
+ * palette runs out of space the map switches to holding its values directly.
+ */
+public class PaletteMap<T> extends ObjectMap<T> {
+    public static final int MAX_SIZE = 256;
+
+    private final Palette<T> palette;
+    private final IntFunction<T[]> constructor;
+    private final byte[] data = new byte[16 * 16];
+    // Non-null once a value could not be added to the palette
+    private T[] values;
+
+    public PaletteMap(Palette<T> palette, IntFunction<T[]> constructor) {
+        super(Index.CHUNK, null);
+        this.palette = palette;
+        this.constructor = constructor;
+    }
+
+    @Override
+    public T get(int index) {
+        if (values != null) return values[index];
+
+        return palette.get(data[index] & 0xFF);
+    }
+
+    @Override
+    public void set(int index, T value) {
+        if (values != null) {
+            values[index] = value;
+            return;
+        }
+
+        int paletteIndex = palette.getIndex(value);
+        if (paletteIndex == -1) {
+            inflate();
+            values[index] = value;
+            return;
+        }
+
+        data[index] = (byte) paletteIndex;
+    }
+
+    @Override
+    public void fill(Supplier<T> supplier) {
+        for (int i = 0; i < data.length; i++) {
+            set(i, supplier.get());
+        }
+    }
+
+    private void inflate() {
+        var values = constructor.apply(data.length);
+        for (int i = 0; i < data.length; i++) {
+            values[i] = palette.get(data[i] & 0xFF);
+        }
+        this.values = values;
+    }
+}
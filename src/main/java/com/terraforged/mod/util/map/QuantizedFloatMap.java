@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.util.map;
+
+/**
+ * A chunk-sized FloatMap that stores its values as fixed-point integers over a known range.
+ * Reads & writes go through the regular FloatMap accessors so callers are unaffected.
+ */
+public abstract class QuantizedFloatMap extends FloatMap {
+    protected final float origin;
+    protected final float step;
+    protected final float invStep;
+    protected final int maxValue;
+    protected final boolean truncate;
+
+    protected QuantizedFloatMap(float origin, float step, int maxValue, boolean truncate) {
+        super(Index.CHUNK, null);
+        this.origin = origin;
+        this.step = step;
+        this.invStep = 1F / step;
+        this.maxValue = maxValue;
+        this.truncate = truncate;
+    }
+
+    @Override
+    public float get(int index) {
+        return origin + getRaw(index) * step;
+    }
+
+    @Override
+    public void set(int index, float value) {
+        float scaled = (value - origin) * invStep;
+        int raw = truncate ? (int) Math.floor(scaled) : Math.round(scaled);
+        setRaw(index, raw < 0 ? 0 : Math.min(raw, maxValue));
+    }
+
+    protected abstract int getRaw(int index);
+
+    protected abstract void setRaw(int index, int value);
+
+    /**
+     * Creates a 16-bit map with a power-of-two step so that whole numbers are represented
+     * exactly. Values are truncated towards the origin which means that the integer part
+     * of any value read back (ie the block height) matches the value that was written.
+     */
+    public static QuantizedFloatMap fixed16(float min, float max) {
+        float range = Math.max(1F, max - min);
+        int fractionBits = 0;
+        while (fractionBits < 15 && range * (1 << (fractionBits + 1)) <= Fixed16.MAX) {
+            fractionBits++;
+        }
+        return new Fixed16(min, 1F / (1 << fractionBits));
+    }
+
+    /**
+     * Creates an 8-bit map covering the range [min, max] at 1/255 resolution.
+     */
+    public static QuantizedFloatMap unit8(float min, float max) {
+        return new Unit8(min, (max - min) / Unit8.MAX);
+    }
+
+    private static class Fixed16 extends QuantizedFloatMap {
+        private static final int MAX = 0xFFFF;
+
+        private final short[] data = new short[16 * 16];
+
+        private Fixed16(float origin, float step) {
+            super(origin, step, MAX, true);
+        }
+
+        @Override
+        protected int getRaw(int index) {
+            return data[index] & MAX;
+        }
+
+        @Override
+        protected void setRaw(int index, int value) {
+            data[index] = (short) value;
+        }
+    }
+
+    private static class Unit8 extends QuantizedFloatMap {
+        private static final int MAX = 0xFF;
+
+        private final byte[] data = new byte[16 * 16];
+
+        private Unit8(float origin, float step) {
+            super(origin, step, MAX, false);
+        }
+
+        @Override
+        protected int getRaw(int index) {
+            return data[index] & MAX;
+        }
+
+        @Override
+        protected void setRaw(int index, int value) {
+            data[index] = (byte) value;
+        }
+    }
+}
@@ -30,6 +30,9 @@ import com.terraforged.mod.util.MathUtil;
 import java.util.function.Predicate;
 
 public class WeightMap<T> {
+    // Below this size a linear scan of the cumulative weights beats bisecting them
+    private static final int LINEAR_SEARCH_SIZE = 8;
+
     protected final T[] values;
     protected final float[] weights;
     protected final float sumWeight;
@@ -51,17 +54,49 @@ public class WeightMap<T> {
     }
 
     public T getValue(float noise) {
+        int index = getIndex(noise);
+        return index == -1 ? null : values[index];
+    }
+
+    /**
+     * The index of the value selected by the given noise. Indices are dense (0 to size - 1) so they
+     * can be used to key array-backed lookups of per-value data.
+     */
+    public int getIndex(float noise) {
         noise *= sumWeight;
 
-        if (noise < zeroWeight) return values[0];
+        if (noise < zeroWeight) return 0;
 
-        for (int i = 1; i < weights.length; i++) {
-            if (noise < weights[i]) {
-                return values[i];
+        if (weights.length <= LINEAR_SEARCH_SIZE) {
+            for (int i = 1; i < weights.length; i++) {
+                if (noise < weights[i]) {
+                    return i;
+                }
             }
+            return -1;
         }
 
-        return null;
+        // The cumulative weights are ascending so the first bound above the noise can be bisected
+        int lower = 1;
+        int upper = weights.length;
+        while (lower < upper) {
+            int mid = (lower + upper) >>> 1;
+            if (noise < weights[mid]) {
+                upper = mid;
+            } else {
+                lower = mid + 1;
+            }
+        }
+
+        return lower < weights.length ? lower : -1;
+    }
+
+    public T getValueAt(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return values.length;
     }
 
     public T find(Predicate<T> predicate) {
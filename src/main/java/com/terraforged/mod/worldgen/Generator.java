@@ -24,19 +24,27 @@
 
 package com.terraforged.mod.worldgen;
 
+import com.google.gson.JsonElement;
 import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.JsonOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import com.terraforged.mod.codec.WorldGenCodec;
+import com.terraforged.mod.registry.ModRegistries;
 import com.terraforged.mod.worldgen.biome.BiomeGenerator;
 import com.terraforged.mod.worldgen.biome.Source;
 import com.terraforged.mod.worldgen.noise.INoiseGenerator;
+import com.terraforged.mod.worldgen.noise.compile.ModuleOptimizer;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionQuality;
 import com.terraforged.mod.worldgen.terrain.TerrainCache;
 import com.terraforged.mod.worldgen.terrain.TerrainData;
 import com.terraforged.mod.worldgen.terrain.TerrainLevels;
 import com.terraforged.mod.worldgen.util.ChunkUtil;
 import com.terraforged.mod.worldgen.util.ThreadPool;
+import com.terraforged.mod.worldgen.util.WorkerPool.Urgency;
 import net.minecraft.core.*;
+import net.minecraft.resources.RegistryOps;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.WorldGenRegion;
 import net.minecraft.world.level.*;
@@ -47,6 +55,7 @@ import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.dimension.DimensionType;
 import net.minecraft.world.level.levelgen.GenerationStep;
 import net.minecraft.world.level.levelgen.LegacyRandomSource;
 import net.minecraft.world.level.levelgen.RandomSupport;
@@ -54,6 +63,7 @@ import net.minecraft.world.level.levelgen.WorldgenRandom;
 import net.minecraft.world.level.levelgen.blending.Blender;
 import net.minecraft.world.level.levelgen.feature.ConfiguredStructureFeature;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureManager;
+import net.minecraft.world.level.storage.LevelResource;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
@@ -114,6 +124,68 @@ public class Generator extends ChunkGenerator {
         return terrainCache.getAsync(pos);
     }
 
+    /**
+     * The approximate (eroded) surface height at the given block position, generated at the given
+     * erosion quality without generating or caching the chunk itself.
+     */
+    public CompletableFuture<Integer> getSurfaceHeightAsync(int x, int z, ErosionQuality quality) {
+        return terrainCache.getAsync(new ChunkPos(x >> 4, z >> 4), quality)
+                .thenApply(terrainData -> Math.max(getSeaLevel(), terrainData.getHeight(x & 15, z & 15)) + 1);
+    }
+
+    public TerrainCache getTerrainCache() {
+        return terrainCache;
+    }
+
+    public void onLevelLoad(ServerLevel level) {
+        var root = level.getServer().getWorldPath(LevelResource.ROOT);
+        var dir = DimensionType.getStorageFolder(level.dimension(), root).resolve("terraforged").resolve("terrain");
+        terrainCache.open(dir, getFingerprint());
+        noiseGenerator.setViewDistance(level.getServer().getPlayerList().getViewDistance());
+    }
+
+    public void onLevelTick(ServerLevel level) {
+        noiseGenerator.getPlayerTracker().tick(level);
+        // The view distance can be changed at runtime (eg from the client's options in single player)
+        noiseGenerator.setViewDistance(level.getServer().getPlayerList().getViewDistance());
+    }
+
+    public void onLevelUnload(ServerLevel level) {
+        terrainCache.close();
+        ModuleOptimizer.clear();
+    }
+
+    /**
+     * Hashes the seed, levels and the serialized contents of the TerraForged registries (terrain,
+     * noise, climate etc.) so that stored terrain is discarded when any of its settings change.
+     */
+    protected long getFingerprint() {
+        var ops = RegistryOps.create(JsonOps.INSTANCE, getRegistries());
+
+        long hash = seed;
+        hash = hash * 31 + TerrainLevels.CODEC.encodeStart(ops, levels).result().map(JsonElement::toString).orElse("").hashCode();
+
+        for (var holder : ModRegistries.getHolders()) {
+            hash = hash * 31 + getFingerprint(holder, ops);
+        }
+
+        return hash;
+    }
+
+    private <T> long getFingerprint(ModRegistries.HolderEntry<T> holder, DynamicOps<JsonElement> ops) {
+        var registry = getRegistries().registry(holder.key());
+        if (registry.isEmpty()) return 0L;
+
+        // Entry order isn't stable so the per-entry hashes are combined order-independently
+        long hash = 0L;
+        for (var entry : registry.get().entrySet()) {
+            var json = holder.direct().encodeStart(ops, entry.getValue()).result().map(JsonElement::toString).orElse("");
+            hash += entry.getKey().location().hashCode() * 31L + json.hashCode();
+        }
+
+        return hash;
+    }
+
     @Override
     public Codec<? extends ChunkGenerator> codec() {
         return CODEC;
@@ -176,7 +248,7 @@ public class Generator extends ChunkGenerator {
         return CompletableFuture.supplyAsync(() -> {
             ChunkUtil.fillNoiseBiomes(chunk, biomeSource, climateSampler(), localResource.get());
             return chunk;
-        }, ThreadPool.EXECUTOR);
+        }, ThreadPool.BIOME.at(chunk.getPos().x, chunk.getPos().z, Urgency.REQUIRED, noiseGenerator.getPlayerTracker()));
     }
 
     @Override
@@ -259,5 +331,8 @@ public class Generator extends ChunkGenerator {
         lines.add("Climate Type: " + climateType.name());
         lines.add("Continent Edge: " + climateSample.continentNoise);
         lines.add("River Proximity: " + (1 - climateSample.riverNoise));
+        terrainCache.addDebugInfo(lines);
+        noiseGenerator.addDebugInfo(lines);
+        ThreadPool.addDebugInfo(lines);
     }
 }
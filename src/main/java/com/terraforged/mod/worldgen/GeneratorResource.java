@@ -25,6 +25,8 @@
 package com.terraforged.mod.worldgen;
 
 import com.terraforged.mod.worldgen.util.ChunkUtil;
+import com.terraforged.mod.worldgen.util.SectionBuilder;
+import io.netty.buffer.Unpooled;
 import net.minecraft.core.Holder;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.world.level.biome.Biome;
@@ -32,6 +34,8 @@ import net.minecraft.world.level.biome.Biome;
 public class GeneratorResource {
     public final Holder<Biome>[] biomeBuffer2D = GeneratorResource.create(4 * 4);
     public final FriendlyByteBuf fullSection = ChunkUtil.getFullSection();
+    public final FriendlyByteBuf biomeSection = new FriendlyByteBuf(Unpooled.buffer());
+    public final SectionBuilder sectionBuilder = new SectionBuilder();
 
     @SuppressWarnings("unchecked")
     public static Holder<Biome>[] create(int size) {
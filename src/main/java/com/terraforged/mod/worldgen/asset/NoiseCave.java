@@ -29,6 +29,8 @@ import com.terraforged.mod.codec.LazyCodec;
 import com.terraforged.mod.util.seed.ContextSeedable;
 import com.terraforged.mod.worldgen.cave.CaveType;
 import com.terraforged.mod.worldgen.noise.NoiseCodec;
+import com.terraforged.mod.worldgen.noise.compile.ModuleOptimizer;
+import com.terraforged.mod.worldgen.noise.compile.NoiseCompiler;
 import com.terraforged.noise.Module;
 import com.terraforged.noise.util.NoiseUtil;
 
@@ -54,7 +56,16 @@ public class NoiseCave implements ContextSeedable<NoiseCave>  {
     private final int maxY;
     private final int rangeY;
 
+    // Sampling forms of the above modules (optimized and/or compiled once seeded, when enabled)
+    private final Module elevationSampler;
+    private final Module shapeSampler;
+    private final Module floorSampler;
+
     public NoiseCave(int seed, CaveType type, Module elevation, Module shape, Module floor, int size, int minY, int maxY) {
+        this(seed, type, elevation, shape, floor, size, minY, maxY, false);
+    }
+
+    private NoiseCave(int seed, CaveType type, Module elevation, Module shape, Module floor, int size, int minY, int maxY, boolean seeded) {
         this.seed = seed;
         this.type = type;
         this.elevation = elevation;
@@ -64,6 +75,11 @@ public class NoiseCave implements ContextSeedable<NoiseCave>  {
         this.minY = minY;
         this.maxY = maxY;
         this.rangeY = maxY - minY;
+
+        var samplers = getSamplers(seeded, elevation, shape, floor);
+        this.elevationSampler = samplers[0];
+        this.shapeSampler = samplers[1];
+        this.floorSampler = samplers[2];
     }
 
     @Override
@@ -71,7 +87,7 @@ public class NoiseCave implements ContextSeedable<NoiseCave>  {
         var elevation = withSeed(seed, this.elevation, Module.class);
         var shape = withSeed(seed, this.shape, Module.class);
         var floor = withSeed(seed, this.floor, Module.class);
-        return new NoiseCave(this.seed, type, elevation, shape, floor, size, minY, maxY);
+        return new NoiseCave(this.seed, type, elevation, shape, floor, size, minY, maxY, true);
     }
 
     public int getSeed() {
@@ -83,15 +99,15 @@ public class NoiseCave implements ContextSeedable<NoiseCave>  {
     }
 
     public int getHeight(int x, int z) {
-        return getScaleValue(x, z, 1F, minY, rangeY, elevation);
+        return getScaleValue(x, z, 1F, minY, rangeY, elevationSampler);
     }
 
     public int getCavernSize(int x, int z, float modifier) {
-        return getScaleValue(x, z, modifier, 0, size, shape);
+        return getScaleValue(x, z, modifier, 0, size, shapeSampler);
     }
 
     public int getFloorDepth(int x, int z, int size) {
-        return getScaleValue(x, z, 1F, 0, size, floor);
+        return getScaleValue(x, z, 1F, 0, size, floorSampler);
     }
 
     @Override
@@ -108,6 +124,17 @@ public class NoiseCave implements ContextSeedable<NoiseCave>  {
                 '}';
     }
 
+    private static Module[] getSamplers(boolean seeded, Module... modules) {
+        // Codec-decoded (unseeded) caves are only templates for withSeed so aren't worth optimizing
+        if (!seeded) return modules;
+
+        var samplers = ModuleOptimizer.optimizeAllIfEnabled(modules);
+        for (int i = 0; i < samplers.length; i++) {
+            samplers[i] = NoiseCompiler.compileIfEnabled(samplers[i]);
+        }
+        return samplers;
+    }
+
     private static int getScaleValue(int x, int z, float modifier, int min, int range, Module noise) {
         if (range <= 0) return 0;
 
@@ -30,6 +30,8 @@ import com.terraforged.mod.codec.LazyCodec;
 import com.terraforged.mod.util.map.WeightMap;
 import com.terraforged.mod.util.seed.ContextSeedable;
 import com.terraforged.mod.worldgen.noise.NoiseCodec;
+import com.terraforged.mod.worldgen.noise.compile.ModuleOptimizer;
+import com.terraforged.mod.worldgen.noise.compile.NoiseCompiler;
 import com.terraforged.noise.Module;
 import com.terraforged.noise.Source;
 import net.minecraft.core.Holder;
@@ -46,11 +48,17 @@ public class TerrainNoise implements ContextSeedable<TerrainNoise>, WeightMap.We
     private final Holder<TerrainType> type;
     private final float weight;
     private final Module noise;
+    private final Module sampler;
 
     public TerrainNoise(Holder<TerrainType> type, float weight, Module noise) {
+        this(type, weight, noise, noise);
+    }
+
+    private TerrainNoise(Holder<TerrainType> type, float weight, Module noise, Module sampler) {
         this.type = type;
         this.weight = weight;
         this.noise = noise;
+        this.sampler = sampler;
     }
 
     @Override
@@ -59,6 +67,26 @@ public class TerrainNoise implements ContextSeedable<TerrainNoise>, WeightMap.We
         return new TerrainNoise(type, weight, heightmap);
     }
 
+    /**
+     * Seeds every terrain, optimizing their graphs together (so that sources used by several
+     * terrains are shared) and compiling them, when those are enabled.
+     */
+    public static TerrainNoise[] withSeed(long seed, TerrainNoise[] terrains) {
+        var noises = new Module[terrains.length];
+        for (int i = 0; i < terrains.length; i++) {
+            noises[i] = terrains[i].withSeed(seed).noise();
+        }
+
+        var samplers = ModuleOptimizer.optimizeAllIfEnabled(noises);
+
+        var result = new TerrainNoise[terrains.length];
+        for (int i = 0; i < terrains.length; i++) {
+            var terrain = terrains[i];
+            result[i] = new TerrainNoise(terrain.type, terrain.weight, noises[i], NoiseCompiler.compileIfEnabled(samplers[i]));
+        }
+        return result;
+    }
+
     @Override
     public float weight() {
         return weight;
@@ -76,6 +104,14 @@ public class TerrainNoise implements ContextSeedable<TerrainNoise>, WeightMap.We
         return noise;
     }
 
+    /**
+     * The module used for sampling. Once seeded via {@link #withSeed(long, TerrainNoise[])} this is the
+     * optimized and/or compiled form of the noise graph, when those are enabled.
+     */
+    public Module sampler() {
+        return sampler;
+    }
+
     @Override
     public String toString() {
         return "TerrainConfig{" +
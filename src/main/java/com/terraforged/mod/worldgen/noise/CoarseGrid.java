@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise;
+
+import com.terraforged.mod.util.MathUtil;
+
+/**
+ * A grid of noise values sampled every 'step' blocks, aligned to the world grid so that adjacent
+ * chunks interpolate between the same nodes, and interpolated to block resolution.
+ */
+public class CoarseGrid {
+    protected int step;
+    protected int width;
+    protected int height;
+    protected int originX;
+    protected int originZ;
+    protected boolean bicubic;
+    protected float[] nodes = new float[0];
+
+    public CoarseGrid init(int startX, int startZ, int length, int step, boolean bicubic) {
+        // Bicubic interpolation needs an extra node either side of the covered range
+        int margin = bicubic ? 1 : 0;
+        int minX = Math.floorDiv(startX, step) - margin;
+        int minZ = Math.floorDiv(startZ, step) - margin;
+        int maxX = Math.floorDiv(startX + length - 1, step) + 1 + margin;
+        int maxZ = Math.floorDiv(startZ + length - 1, step) + 1 + margin;
+
+        this.step = step;
+        this.bicubic = bicubic;
+        this.originX = minX * step;
+        this.originZ = minZ * step;
+        this.width = maxX - minX + 1;
+        this.height = maxZ - minZ + 1;
+
+        int size = width * height;
+        if (nodes.length < size) {
+            nodes = new float[size];
+        }
+
+        return this;
+    }
+
+    public int size() {
+        return width * height;
+    }
+
+    public int getNodeX(int index) {
+        return originX + (index % width) * step;
+    }
+
+    public int getNodeZ(int index) {
+        return originZ + (index / width) * step;
+    }
+
+    public void set(int index, float value) {
+        nodes[index] = value;
+    }
+
+    public float get(int x, int z) {
+        int dx = x - originX;
+        int dz = z - originZ;
+        int ix = dx / step;
+        int iz = dz / step;
+        float tx = (dx - ix * step) / (float) step;
+        float tz = (dz - iz * step) / (float) step;
+
+        if (bicubic) {
+            return getBicubic(ix, iz, tx, tz);
+        }
+
+        int i = iz * width + ix;
+        float upper = lerp(nodes[i], nodes[i + 1], tx);
+        float lower = lerp(nodes[i + width], nodes[i + width + 1], tx);
+        return lerp(upper, lower, tz);
+    }
+
+    protected float getBicubic(int ix, int iz, float tx, float tz) {
+        int i = (iz - 1) * width + ix - 1;
+        float r0 = MathUtil.cubic(nodes[i], nodes[i + 1], nodes[i + 2], nodes[i + 3], tx);
+        i += width;
+        float r1 = MathUtil.cubic(nodes[i], nodes[i + 1], nodes[i + 2], nodes[i + 3], tx);
+        i += width;
+        float r2 = MathUtil.cubic(nodes[i], nodes[i + 1], nodes[i + 2], nodes[i + 3], tx);
+        i += width;
+        float r3 = MathUtil.cubic(nodes[i], nodes[i + 1], nodes[i + 2], nodes[i + 3], tx);
+        return MathUtil.cubic(r0, r1, r2, r3, tz);
+    }
+
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+}
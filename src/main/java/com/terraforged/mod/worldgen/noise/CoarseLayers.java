@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise;
+
+import com.terraforged.mod.Environment;
+
+/**
+ * Coarse grids for the slowly varying noise layers of a block of columns. Each layer can be
+ * sampled every N blocks and interpolated rather than evaluated at every column.
+ * <p>
+ * Steps are configured per layer with the system properties noise_step_continent, noise_step_base,
+ * noise_step_ocean & noise_step_warp (a step of 1 samples every column). Interpolation is bilinear
+ * unless the noise_bicubic flag is set.
+ */
+public class CoarseLayers {
+    public static final Settings DEFAULT_SETTINGS = new Settings(
+            Math.max(1, Environment.getInt("noise_step_continent", 1)),
+            Math.max(1, Environment.getInt("noise_step_base", 1)),
+            Math.max(1, Environment.getInt("noise_step_ocean", 1)),
+            Math.max(1, Environment.getInt("noise_step_warp", 1)),
+            Environment.hasFlag("noise_bicubic")
+    );
+
+    protected final Settings settings;
+    protected final CoarseGrid continent = new CoarseGrid();
+    protected final CoarseGrid base = new CoarseGrid();
+    protected final CoarseGrid ocean = new CoarseGrid();
+    protected final CoarseGrid warpX = new CoarseGrid();
+    protected final CoarseGrid warpZ = new CoarseGrid();
+    protected final NoiseSample sample = new NoiseSample();
+
+    protected int startX;
+    protected int startZ;
+    protected int length = -1;
+
+    public CoarseLayers(Settings settings) {
+        this.settings = settings;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public boolean contains(int x, int z, int length) {
+        return x >= startX && z >= startZ && x + length <= startX + this.length && z < startZ + this.length;
+    }
+
+    public boolean hasContinent() {
+        return settings.continentStep > 1;
+    }
+
+    public boolean hasBase() {
+        return settings.baseStep > 1;
+    }
+
+    public boolean hasOcean() {
+        return settings.oceanStep > 1;
+    }
+
+    public boolean hasWarp() {
+        return settings.warpStep > 1;
+    }
+
+    public CoarseGrid getContinent() {
+        return continent;
+    }
+
+    public CoarseGrid getBase() {
+        return base;
+    }
+
+    public CoarseGrid getOcean() {
+        return ocean;
+    }
+
+    public CoarseGrid getWarpX() {
+        return warpX;
+    }
+
+    public CoarseGrid getWarpZ() {
+        return warpZ;
+    }
+
+    /**
+     * Samples the coarse nodes of each enabled layer covering the length x length block of columns
+     * starting at startX, startZ.
+     */
+    public void prepare(int startX, int startZ, int length, NoiseGenerator generator) {
+        this.startX = startX;
+        this.startZ = startZ;
+        this.length = length;
+
+        boolean bicubic = settings.bicubic;
+
+        if (hasContinent()) {
+            var grid = continent.init(startX, startZ, length, settings.continentStep, bicubic);
+            for (int i = 0; i < grid.size(); i++) {
+                float nx = generator.getNoiseCoord(grid.getNodeX(i));
+                float nz = generator.getNoiseCoord(grid.getNodeZ(i));
+                generator.continent.sampleContinent(nx, nz, sample);
+                grid.set(i, sample.continentNoise);
+            }
+        }
+
+        if (hasBase()) {
+            var grid = base.init(startX, startZ, length, settings.baseStep, bicubic);
+            for (int i = 0; i < grid.size(); i++) {
+                float nx = generator.getNoiseCoord(grid.getNodeX(i));
+                float nz = generator.getNoiseCoord(grid.getNodeZ(i));
+                grid.set(i, generator.baseHeight.getValue(nx, nz));
+            }
+        }
+
+        if (hasOcean()) {
+            var grid = ocean.init(startX, startZ, length, settings.oceanStep, bicubic);
+            for (int i = 0; i < grid.size(); i++) {
+                float nx = generator.getNoiseCoord(grid.getNodeX(i));
+                float nz = generator.getNoiseCoord(grid.getNodeZ(i));
+                grid.set(i, generator.ocean.getValue(nx, nz));
+            }
+        }
+
+        if (hasWarp()) {
+            var gridX = warpX.init(startX, startZ, length, settings.warpStep, bicubic);
+            var gridZ = warpZ.init(startX, startZ, length, settings.warpStep, bicubic);
+            for (int i = 0; i < gridX.size(); i++) {
+                float nx = generator.getNoiseCoord(gridX.getNodeX(i));
+                float nz = generator.getNoiseCoord(gridX.getNodeZ(i));
+                gridX.set(i, generator.land.getRegionX(nx, nz));
+                gridZ.set(i, generator.land.getRegionZ(nx, nz));
+            }
+        }
+    }
+
+    public record Settings(int continentStep, int baseStep, int oceanStep, int warpStep, boolean bicubic) {
+        public boolean isEnabled() {
+            return continentStep > 1 || baseStep > 1 || oceanStep > 1 || warpStep > 1;
+        }
+    }
+}
@@ -37,5 +37,13 @@ public interface IContinentNoise extends Continent {
 
     void sampleContinent(float x, float y, NoiseSample sample);
 
+    /**
+     * Applies an externally computed (eg interpolated) continent value to the sample, updating any
+     * properties that sampleContinent derives from it.
+     */
+    default void setContinentNoise(float continentNoise, NoiseSample sample) {
+        sample.continentNoise = continentNoise;
+    }
+
     void sampleRiver(float x, float z, NoiseSample sample, RiverCache cache);
 }
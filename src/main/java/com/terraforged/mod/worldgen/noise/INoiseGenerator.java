@@ -25,15 +25,26 @@
 package com.terraforged.mod.worldgen.noise;
 
 import com.terraforged.engine.world.terrain.Terrain;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionQuality;
 import com.terraforged.mod.worldgen.terrain.TerrainLevels;
+import com.terraforged.mod.worldgen.util.PlayerTracker;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface INoiseGenerator {
     INoiseGenerator with(long seed, TerrainLevels levels);
 
     NoiseLevels getLevels();
 
+    /**
+     * The tracker of the players in this generator's level, used to prioritise its world-gen tasks.
+     */
+    PlayerTracker getPlayerTracker();
+
     IContinentNoise getContinent();
 
     NoiseSample getNoiseSample(int x, int z);
@@ -44,7 +55,66 @@ public interface INoiseGenerator {
 
     void generate(int chunkX, int chunkZ, Consumer<NoiseData> consumer);
 
+    /**
+     * Generates the chunk's noise and maps it to a result on the given executor. Implementations
+     * that depend on other asynchronous work should compose on it rather than block a worker.
+     */
+    default <T> CompletableFuture<T> generateAsync(int chunkX, int chunkZ, Function<NoiseData, T> function, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            var result = new Object[1];
+            generate(chunkX, chunkZ, noiseData -> result[0] = function.apply(noiseData));
+            //noinspection unchecked
+            return (T) result[0];
+        }, executor);
+    }
+
+    /**
+     * Generates the chunk's noise using the given erosion quality tier. Generators without erosion
+     * ignore the quality. Results from different tiers differ so they should not be cached or
+     * persisted in place of one another.
+     */
+    default <T> CompletableFuture<T> generateAsync(int chunkX, int chunkZ, ErosionQuality quality, Function<NoiseData, T> function, Executor executor) {
+        return generateAsync(chunkX, chunkZ, function, executor);
+    }
+
+    /**
+     * The preferred width (in chunks) of the square blocks passed to the batched generate method.
+     * Generators that don't benefit from batching return 1.
+     */
+    default int getBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Generates the size x size block of chunks starting at chunkX, chunkZ, passing each chunk's
+     * noise to the consumer. The NoiseData is only valid for the duration of each callback.
+     */
+    default void generate(int chunkX, int chunkZ, int size, BatchConsumer consumer) {
+        for (int dz = 0; dz < size; dz++) {
+            for (int dx = 0; dx < size; dx++) {
+                final int cx = chunkX + dx;
+                final int cz = chunkZ + dz;
+                generate(cx, cz, noiseData -> consumer.accept(cx, cz, noiseData));
+            }
+        }
+    }
+
+    /**
+     * Called with the server's view distance (in chunks) when the level loads & whenever it changes
+     * so that caches can be sized to the area being generated.
+     */
+    default void setViewDistance(int viewDistance) {}
+
+    /**
+     * Adds generator specific lines (eg cache statistics) to the debug screen.
+     */
+    default void addDebugInfo(List<String> lines) {}
+
     default float getNoiseCoord(int coord) {
         return coord * getLevels().frequency;
     }
+
+    interface BatchConsumer {
+        void accept(int chunkX, int chunkZ, NoiseData noiseData);
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise;
+
+import com.terraforged.engine.world.terrain.Terrain;
+
+/**
+ * A contiguous sample grid covering a square block of chunks plus a one block border. Each
+ * chunk's (bordered) NoiseData is copied out of the grid so neighbouring chunks share the
+ * samples along their common edges.
+ */
+public class NoiseBatch {
+    protected int size;
+    protected int length;
+    protected float[] height = new float[0];
+    protected float[] water = new float[0];
+    protected Terrain[] terrain = new Terrain[0];
+
+    public NoiseBatch init(int size) {
+        this.size = size;
+        this.length = (size << 4) + NoiseData.BORDER * 2;
+
+        int area = length * length;
+        if (height.length < area) {
+            height = new float[area];
+            water = new float[area];
+            terrain = new Terrain[area];
+        }
+
+        return this;
+    }
+
+    public void set(int index, NoiseSample sample) {
+        height[index] = sample.heightNoise;
+        water[index] = sample.riverNoise;
+        terrain[index] = sample.terrainType;
+    }
+
+    public void copy(int offsetX, int offsetZ, NoiseData noiseData) {
+        int min = noiseData.min();
+        int max = noiseData.max();
+        var index = noiseData.index();
+
+        for (int dz = min; dz < max; dz++) {
+            int row = (offsetZ + dz + NoiseData.BORDER) * length + NoiseData.BORDER + offsetX;
+
+            for (int dx = min; dx < max; dx++) {
+                int i = row + dx;
+                noiseData.setNoise(index.of(dx, dz), height[i], water[i], terrain[i]);
+            }
+        }
+    }
+}
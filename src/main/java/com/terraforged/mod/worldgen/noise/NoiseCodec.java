@@ -28,6 +28,8 @@ import com.mojang.serialization.Codec;
 import com.terraforged.cereal.spec.DataSpecs;
 import com.terraforged.engine.module.Ridge;
 import com.terraforged.mod.codec.SuperCodec;
+import com.terraforged.mod.util.DataUtil;
+import com.terraforged.mod.worldgen.noise.compile.SharedModule;
 import com.terraforged.noise.Module;
 import com.terraforged.noise.util.NoiseSpec;
 
@@ -39,6 +41,7 @@ public class NoiseCodec {
     static {
         NoiseSpec.init();
         DataSpecs.register(Ridge.spec());
+        DataUtil.registerSub(Module.class, SharedModule.SPEC);
     }
 
     public static void init() {}
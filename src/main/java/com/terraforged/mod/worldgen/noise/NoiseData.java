@@ -78,6 +78,12 @@ public class NoiseData {
         water.set(index, sample.riverNoise);
     }
 
+    public void setNoise(int index, float heightNoise, float riverNoise, Terrain terrainType) {
+        terrain.set(index, terrainType);
+        height.set(index, heightNoise);
+        water.set(index, riverNoise);
+    }
+
     public static boolean isInsideChunk(int x, int z) {
         return x >= -1 && x <= 16 && z >= -1 && z <= 16;
     }
@@ -30,12 +30,14 @@ import com.terraforged.engine.world.GeneratorContext;
 import com.terraforged.engine.world.heightmap.ControlPoints;
 import com.terraforged.engine.world.terrain.Terrain;
 import com.terraforged.engine.world.terrain.TerrainType;
+import com.terraforged.mod.Environment;
 import com.terraforged.mod.worldgen.asset.TerrainNoise;
 import com.terraforged.mod.worldgen.noise.continent.ContinentNoise0;
 import com.terraforged.mod.worldgen.noise.erosion.ErodedNoiseGenerator;
 import com.terraforged.mod.worldgen.noise.erosion.NoiseTileSize;
 import com.terraforged.mod.worldgen.terrain.TerrainBlender;
 import com.terraforged.mod.worldgen.terrain.TerrainLevels;
+import com.terraforged.mod.worldgen.util.PlayerTracker;
 import com.terraforged.noise.Module;
 import com.terraforged.noise.Source;
 import com.terraforged.noise.util.NoiseUtil;
@@ -43,6 +45,10 @@ import com.terraforged.noise.util.NoiseUtil;
 import java.util.function.Consumer;
 
 public class NoiseGenerator implements INoiseGenerator {
+    // Batching turns a single chunk request into a size x size job so it only pays off when most of
+    // the block gets used (eg bulk pregeneration). Off by default, the eroded generator doesn't batch
+    public static final int BATCH_SIZE = Math.max(1, Environment.getInt("noise_batch_size", 1));
+
     protected final float heightMultiplier = 1.2F;
 
     protected final long seed;
@@ -52,8 +58,11 @@ public class NoiseGenerator implements INoiseGenerator {
     protected final TerrainBlender land;
     protected final IContinentNoise continent;
     protected final ControlPoints controlPoints;
+    protected final PlayerTracker playerTracker = new PlayerTracker();
     protected final ThreadLocal<NoiseData> localChunk = ThreadLocal.withInitial(NoiseData::new);
     protected final ThreadLocal<NoiseSample> localSample = ThreadLocal.withInitial(NoiseSample::new);
+    protected final ThreadLocal<NoiseBatch> localBatch = ThreadLocal.withInitial(NoiseBatch::new);
+    protected final ThreadLocal<NoiseRow> localRow = ThreadLocal.withInitial(NoiseRow::new);
 
     public NoiseGenerator(long seed, TerrainLevels levels, TerrainNoise[] terrainNoises) {
         this.seed = seed;
@@ -85,6 +94,11 @@ public class NoiseGenerator implements INoiseGenerator {
         return levels;
     }
 
+    @Override
+    public PlayerTracker getPlayerTracker() {
+        return playerTracker;
+    }
+
     @Override
     public IContinentNoise getContinent() {
         return continent;
@@ -133,22 +147,56 @@ public class NoiseGenerator implements INoiseGenerator {
         var noiseData = localChunk.get();
         var blender = land.getBlenderResource();
         var riverCache = continent.getRiverCache();
-        var sample = noiseData.sample;
+        var row = localRow.get();
 
         int startX = chunkX << 4;
         int startZ = chunkZ << 4;
+        prepareCoarse(startX - 1, startZ - 1, 18, row);
+
         for (int dz = -1; dz < 17; dz++) {
+            sampleRow(startX - 1, startZ + dz, 18, row, riverCache, blender);
+
             for (int dx = -1; dx < 17; dx++) {
-                int x = startX + dx;
-                int z = startZ + dz;
+                noiseData.setNoise(dx, dz, row.getSample(dx + 1));
+            }
+        }
+
+        consumer.accept(noiseData);
+    }
+
+    @Override
+    public int getBatchSize() {
+        return BATCH_SIZE;
+    }
 
-                sample(x, z, sample, riverCache, blender);
+    @Override
+    public void generate(int chunkX, int chunkZ, int size, BatchConsumer consumer) {
+        var batch = localBatch.get().init(size);
+        var noiseData = localChunk.get();
+        var blender = land.getBlenderResource();
+        var riverCache = continent.getRiverCache();
+        var row = localRow.get();
+
+        // Sample the whole block (plus its one block border) in a single pass so that
+        // the samples along shared chunk edges are only computed once
+        int startX = chunkX << 4;
+        int startZ = chunkZ << 4;
+        prepareCoarse(startX - 1, startZ - 1, batch.length, row);
 
-                noiseData.setNoise(dx, dz, sample);
+        for (int dz = -1, i = 0; dz < batch.length - 1; dz++) {
+            sampleRow(startX - 1, startZ + dz, batch.length, row, riverCache, blender);
+
+            for (int dx = 0; dx < batch.length; dx++, i++) {
+                batch.set(i, row.getSample(dx));
             }
         }
 
-        consumer.accept(noiseData);
+        for (int cz = 0; cz < size; cz++) {
+            for (int cx = 0; cx < size; cx++) {
+                batch.copy(cx << 4, cz << 4, noiseData);
+                consumer.accept(chunkX + cx, chunkZ + cz, noiseData);
+            }
+        }
     }
 
     public INoiseGenerator withErosion() {
@@ -159,6 +207,10 @@ public class NoiseGenerator implements INoiseGenerator {
         return land.getBlenderResource();
     }
 
+    public NoiseRow getRowResource() {
+        return localRow.get();
+    }
+
     public NoiseSample getNoiseSample(int x, int z) {
         var sample = localSample.get();
         var blender = land.getBlenderResource();
@@ -189,6 +241,101 @@ public class NoiseGenerator implements INoiseGenerator {
         return sample;
     }
 
+    /**
+     * Samples the coarse layers (if any are enabled) for the length x length block of columns starting
+     * at startX, startZ. Rows subsequently sampled within that block interpolate those layers.
+     */
+    public void prepareCoarse(int startX, int startZ, int length, NoiseRow row) {
+        var coarse = row.coarse;
+        if (coarse == null) return;
+
+        coarse.prepare(startX, startZ, length, this);
+    }
+
+    /**
+     * Row equivalent of sample(). Samples the row of points starting at x = startX into the row's samples.
+     */
+    public NoiseRow sampleRow(int startX, int z, int length, NoiseRow row, RiverCache riverCache, TerrainBlender.Blender blender) {
+        sampleTerrainRow(startX, z, length, row, blender);
+
+        float nz = row.getZ();
+        for (int i = 0; i < length; i++) {
+            continent.sampleRiver(row.getX(i), nz, row.getSample(i), riverCache);
+        }
+
+        return row;
+    }
+
+    /**
+     * Row equivalent of sampleTerrain(). Each stage is evaluated across the whole row before the next
+     * so that every module is dispatched in a single loop over only the points that require it.
+     */
+    public NoiseRow sampleTerrainRow(int startX, int z, int length, NoiseRow row, TerrainBlender.Blender blender) {
+        float nz = getNoiseCoord(z);
+        row.init(startX, z, length, nz);
+
+        var coarse = row.getCoarse();
+        var coarseContinent = coarse != null && coarse.hasContinent() ? coarse.getContinent() : null;
+
+        for (int i = 0; i < length; i++) {
+            float nx = getNoiseCoord(startX + i);
+            row.setX(i, nx);
+
+            var sample = row.getSample(i);
+            if (coarseContinent != null) {
+                continent.setContinentNoise(coarseContinent.get(startX + i, z), sample);
+            } else {
+                continent.sampleContinent(nx, nz, sample);
+            }
+
+            if (sample.continentNoise < controlPoints.beach) {
+                row.addLower(i);
+            } else {
+                row.addUpper(i);
+            }
+        }
+
+        float[] values = row.values();
+        float[] baseValues = row.values2();
+        if (coarse != null && coarse.hasOcean()) {
+            row.getValues(coarse.getOcean(), row.lower(), row.lowerCount(), values);
+        } else {
+            row.getValues(ocean, row.lower(), row.lowerCount(), values);
+        }
+
+        if (coarse != null && coarse.hasBase()) {
+            row.getValues(coarse.getBase(), row.upper(), row.upperCount(), baseValues);
+        } else {
+            row.getValues(baseHeight, row.upper(), row.upperCount(), baseValues);
+        }
+
+        land.getValues(row, row.upper(), row.upperCount(), values, row.terrain(), blender);
+
+        // Note: blend points keep the terrain type assigned by the continent, as in sampleTerrain()
+        for (int i = 0; i < length; i++) {
+            var sample = row.getSample(i);
+            float continentNoise = sample.continentNoise;
+
+            if (continentNoise < controlPoints.shallowOcean) {
+                sample.heightNoise = levels.toDepthNoise(values[i]);
+                sample.terrainType = TerrainType.DEEP_OCEAN;
+            } else if (continentNoise >= controlPoints.inland) {
+                sample.heightNoise = levels.toHeightNoise(baseValues[i], values[i] * heightMultiplier);
+                sample.terrainType = row.terrain()[i];
+            } else if (continentNoise < controlPoints.beach) {
+                float lower = levels.toDepthNoise(values[i]);
+                float alpha = (continentNoise - controlPoints.shallowOcean) / (controlPoints.beach - controlPoints.shallowOcean);
+                sample.heightNoise = NoiseUtil.lerp(lower, levels.heightMin, alpha);
+            } else {
+                float upper = levels.toHeightNoise(baseValues[i], values[i] * heightMultiplier);
+                float alpha = (continentNoise - controlPoints.beach) / (controlPoints.inland - controlPoints.beach);
+                sample.heightNoise = NoiseUtil.lerp(levels.heightMin, upper, alpha);
+            }
+        }
+
+        return row;
+    }
+
     public NoiseSample sampleRiver(float nx, float nz, NoiseSample sample, RiverCache riverCache) {
         continent.sampleRiver(nx, nz, sample, riverCache);
         return sample;
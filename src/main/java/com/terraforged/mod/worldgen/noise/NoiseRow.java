@@ -0,0 +1,192 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise;
+
+import com.terraforged.engine.world.terrain.Terrain;
+import com.terraforged.mod.worldgen.asset.TerrainNoise;
+import com.terraforged.noise.Module;
+
+/**
+ * Structure-of-arrays scratch space for sampling a row of points that share the same z coordinate.
+ * Sampling a row stage by stage (continent, then each height module over the points that need it,
+ * then rivers) means each module is dispatched once per row in a tight loop rather than once per
+ * point interleaved with every other module.
+ */
+public class NoiseRow {
+    protected int length;
+    protected int blockX;
+    protected int blockZ;
+    protected float z;
+    protected float[] x = new float[0];
+    protected float[] values = new float[0];
+    protected float[] values2 = new float[0];
+    protected int[] lower = new int[0];
+    protected int[] upper = new int[0];
+    protected Terrain[] terrain = new Terrain[0];
+    protected TerrainNoise[] terrainNoise = new TerrainNoise[0];
+    protected NoiseSample[] samples = new NoiseSample[0];
+
+    protected int lowerCount;
+    protected int upperCount;
+    protected boolean useCoarse;
+    protected CoarseLayers coarse = CoarseLayers.DEFAULT_SETTINGS.isEnabled() ? new CoarseLayers(CoarseLayers.DEFAULT_SETTINGS) : null;
+
+    public NoiseRow init(int blockX, int blockZ, int length, float z) {
+        this.length = length;
+        this.blockX = blockX;
+        this.blockZ = blockZ;
+        this.z = z;
+        this.lowerCount = 0;
+        this.upperCount = 0;
+        this.useCoarse = coarse != null && coarse.contains(blockX, blockZ, length);
+
+        if (x.length < length) {
+            x = new float[length];
+            values = new float[length];
+            values2 = new float[length];
+            lower = new int[length];
+            upper = new int[length];
+            terrain = new Terrain[length];
+            terrainNoise = new TerrainNoise[length];
+
+            var samples = new NoiseSample[length];
+            System.arraycopy(this.samples, 0, samples, 0, this.samples.length);
+            for (int i = this.samples.length; i < length; i++) {
+                samples[i] = new NoiseSample();
+            }
+            this.samples = samples;
+        }
+
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int getBlockX() {
+        return blockX;
+    }
+
+    public int getBlockZ() {
+        return blockZ;
+    }
+
+    /**
+     * Returns the coarse layers covering this row, or null if the row should be sampled at every column.
+     */
+    public CoarseLayers getCoarse() {
+        return useCoarse ? coarse : null;
+    }
+
+    public void setCoarse(CoarseLayers coarse) {
+        this.coarse = coarse;
+    }
+
+    public float getZ() {
+        return z;
+    }
+
+    public float getX(int i) {
+        return x[i];
+    }
+
+    public void setX(int i, float value) {
+        x[i] = value;
+    }
+
+    public NoiseSample getSample(int i) {
+        return samples[i];
+    }
+
+    public float[] values() {
+        return values;
+    }
+
+    public float[] values2() {
+        return values2;
+    }
+
+    public Terrain[] terrain() {
+        return terrain;
+    }
+
+    public TerrainNoise[] terrainNoise() {
+        return terrainNoise;
+    }
+
+    /**
+     * Indices of the points that require the lower (ocean) height module.
+     */
+    public int[] lower() {
+        return lower;
+    }
+
+    /**
+     * Indices of the points that require the upper (land) height modules.
+     */
+    public int[] upper() {
+        return upper;
+    }
+
+    public int lowerCount() {
+        return lowerCount;
+    }
+
+    public int upperCount() {
+        return upperCount;
+    }
+
+    public void addLower(int i) {
+        lower[lowerCount++] = i;
+    }
+
+    public void addUpper(int i) {
+        upper[upperCount++] = i;
+    }
+
+    /**
+     * Evaluates the module at each of the given point indices, writing the results to the same
+     * indices of the output array.
+     */
+    public void getValues(Module module, int[] indices, int count, float[] output) {
+        float z = this.z;
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            output[index] = module.getValue(x[index], z);
+        }
+    }
+
+    /**
+     * Interpolates the coarse grid at each of the given point indices, writing the results to the
+     * same indices of the output array.
+     */
+    public void getValues(CoarseGrid grid, int[] indices, int count, float[] output) {
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            output[index] = grid.get(blockX + index, blockZ);
+        }
+    }
+}
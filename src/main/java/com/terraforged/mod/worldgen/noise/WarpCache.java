@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise;
+
+import com.terraforged.engine.util.pos.PosUtil;
+import com.terraforged.mod.Environment;
+import com.terraforged.noise.domain.Domain;
+import com.terraforged.noise.util.NoiseUtil;
+
+import java.util.Arrays;
+
+/**
+ * A cache of domain-warped coordinates.
+ * <p>
+ * The same world column is warped by the same domain several times as a chunk moves through
+ * generation (terrain noise, erosion, biome sampling, structure placement etc). Each thread keeps
+ * a direct-mapped table of recent warps, stored as parallel arrays so that lookups never allocate.
+ * Results are returned packed into a long (see {@link PosUtil#packf(float, float)}).
+ * <p>
+ * The cache is opt-in (-Dwarp_cache) as the hit rate has yet to be shown to pay for the lookup.
+ * When disabled the warp is computed directly.
+ */
+public class WarpCache {
+    public static final boolean ENABLED = Environment.hasFlag("warp_cache");
+    public static final int SIZE = Integer.highestOneBit(Math.max(256, Environment.getInt("warp_cache_size", 4096)));
+
+    private final Domain warp;
+    private final float scale;
+    private final ThreadLocal<Table> localTable;
+
+    public WarpCache(Domain warp, float scale) {
+        this.warp = warp;
+        this.scale = scale;
+        this.localTable = ENABLED ? ThreadLocal.withInitial(Table::new) : null;
+    }
+
+    /**
+     * Returns the warped coordinates of the given position, multiplied by this cache's scale and
+     * packed into a long.
+     */
+    public long get(float x, float z) {
+        if (localTable == null) {
+            return PosUtil.packf(warp.getX(x, z) * scale, warp.getY(x, z) * scale);
+        }
+
+        var table = localTable.get();
+        int index = hash(x, z) & (SIZE - 1);
+        if (table.keyX[index] != x || table.keyZ[index] != z) {
+            table.keyX[index] = x;
+            table.keyZ[index] = z;
+            table.x[index] = warp.getX(x, z) * scale;
+            table.z[index] = warp.getY(x, z) * scale;
+        }
+
+        return PosUtil.packf(table.x[index], table.z[index]);
+    }
+
+    private static int hash(float x, float z) {
+        int hash = NoiseUtil.hash2D(0, Float.floatToRawIntBits(x), Float.floatToRawIntBits(z));
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Table {
+        private final float[] keyX = new float[SIZE];
+        private final float[] keyZ = new float[SIZE];
+        private final float[] x = new float[SIZE];
+        private final float[] z = new float[SIZE];
+
+        private Table() {
+            // NaN never equals a key so empty slots always miss
+            Arrays.fill(keyX, Float.NaN);
+        }
+    }
+}
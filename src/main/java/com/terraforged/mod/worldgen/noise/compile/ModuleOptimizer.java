@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise.compile;
+
+import com.terraforged.cereal.Cereal;
+import com.terraforged.cereal.spec.Context;
+import com.terraforged.cereal.value.DataList;
+import com.terraforged.cereal.value.DataObject;
+import com.terraforged.cereal.value.DataValue;
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.TerraForged;
+import com.terraforged.mod.util.DataUtil;
+import com.terraforged.noise.Module;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load-time simplification of Module graphs, performed on their serialized form:
+ * <ul>
+ *     <li>Constant folding of arithmetic nodes whose inputs are all constant</li>
+ *     <li>Removal of identity operands (adding 0, multiplying/scaling by 1, biasing by 0)</li>
+ *     <li>Fusion of adjacent Add, Mult, Scale, Bias & Clamp chains into single nodes</li>
+ *     <li>Interning of seeded noise sources that occur more than once across the graphs being
+ *     optimized, so that they are shared (and evaluated once per sample) between those graphs.
+ *     Sources used only once are left inline as sharing them would only add overhead</li>
+ * </ul>
+ * The optimized graph is checked against the original before use, and the original graph is
+ * returned if they disagree or anything goes wrong. Folding and fusion reorder float arithmetic
+ * so results are not bit-exact, hence the optimizer is opt-in. Interned sources are held in a
+ * bounded cache that is cleared when a level unloads.
+ */
+public class ModuleOptimizer {
+    public static final boolean ENABLED = Environment.hasFlag("optimize_noise");
+
+    private static final int CACHE_SIZE = 256;
+    private static final float VERIFY_TOLERANCE = 1E-4F;
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    // Interned modules by id so that serialized references resolve (eg when compiled) after optimize returns
+    private static final Map<Integer, SharedModule> SHARED = new ConcurrentHashMap<>();
+    private static final Map<String, SharedModule> INTERNED = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SharedModule> eldest) {
+            if (size() <= CACHE_SIZE) return false;
+
+            SHARED.remove(eldest.getValue().id());
+            return true;
+        }
+    });
+
+    public static Module optimizeIfEnabled(Module module) {
+        return ENABLED ? optimize(module) : module;
+    }
+
+    public static Module[] optimizeAllIfEnabled(Module... modules) {
+        return ENABLED ? optimizeAll(modules) : modules;
+    }
+
+    public static void clear() {
+        INTERNED.clear();
+        SHARED.clear();
+    }
+
+    public static Module optimize(Module module) {
+        return optimizeAll(module)[0];
+    }
+
+    /**
+     * Optimizes the graphs together so that seeded sources occurring in more than one place across
+     * them are shared. Graphs that fail to optimize are returned unchanged.
+     */
+    public static Module[] optimizeAll(Module... modules) {
+        var result = modules.clone();
+        var nodes = new DataObject[modules.length];
+        var counts = new HashMap<String, Integer>();
+
+        for (int i = 0; i < modules.length; i++) {
+            try {
+                nodes[i] = simplify(Cereal.serialize(modules[i]).asObj());
+                count(nodes[i], counts);
+            } catch (Throwable t) {
+                TerraForged.LOG.warn("Failed to optimize noise graph, using original", t);
+            }
+        }
+
+        for (int i = 0; i < modules.length; i++) {
+            if (nodes[i] == null) continue;
+
+            try {
+                var optimized = Cereal.deserialize(intern(nodes[i], counts), Module.class, Context.NONE);
+
+                if (NoiseCompiler.verify(modules[i], optimized, VERIFY_TOLERANCE)) {
+                    result[i] = optimized;
+                } else {
+                    TerraForged.LOG.warn("Optimized noise diverged from the original graph, using original: {}", modules[i]);
+                }
+            } catch (Throwable t) {
+                TerraForged.LOG.warn("Failed to optimize noise graph, using original", t);
+            }
+        }
+
+        return result;
+    }
+
+    static SharedModule getShared(int id) {
+        var shared = SHARED.get(id);
+        if (shared == null) {
+            throw new IllegalStateException("Unknown shared module: " + id);
+        }
+        return shared;
+    }
+
+    /**
+     * Counts the occurrences of each seeded source sub-graph. Repeats of a sub-graph are evaluated by
+     * a single shared instance so the sources nested inside them are only counted once.
+     */
+    private static void count(DataObject node, Map<String, Integer> counts) throws Throwable {
+        if (hasField(node, "seed")) {
+            var key = DataUtil.toJson(node).toString();
+            if (counts.merge(key, 1, Integer::sum) > 1) return;
+        }
+
+        mapChildren(node, child -> {
+            count(child, counts);
+            return child;
+        });
+    }
+
+    /**
+     * Replaces seeded source sub-graphs that occur more than once (or were interned by an earlier
+     * call) with a reference to the shared instance of that sub-graph.
+     */
+    private static DataObject intern(DataObject node, Map<String, Integer> counts) throws Throwable {
+        if (!hasField(node, "seed")) return mapChildren(node, child -> intern(child, counts));
+
+        var key = DataUtil.toJson(node).toString();
+        var shared = INTERNED.get(key);
+        if (shared == null) {
+            if (counts.getOrDefault(key, 0) < 2) return mapChildren(node, child -> intern(child, counts));
+
+            var source = Cereal.deserialize(mapChildren(node, child -> intern(child, counts)), Module.class, Context.NONE);
+            var value = new SharedModule(NEXT_ID.getAndIncrement(), source);
+            shared = INTERNED.putIfAbsent(key, value);
+            if (shared == null) {
+                shared = value;
+            }
+        }
+
+        SHARED.put(shared.id(), shared);
+
+        var reference = new DataObject("Shared");
+        reference.add("id", DataValue.of(shared.id()));
+        return reference;
+    }
+
+    private static DataObject simplify(DataObject node) throws Throwable {
+        var result = mapChildren(node, ModuleOptimizer::simplify);
+
+        return switch (result.getType()) {
+            case "Add" -> simplifyCombiner(result, 0F, false);
+            case "Mult" -> simplifyCombiner(result, 1F, true);
+            case "Max" -> simplifyMax(result);
+            case "Scale" -> simplifyScale(result);
+            case "Bias" -> simplifyBias(result);
+            case "Abs" -> simplifyAbs(result);
+            case "Clamp" -> simplifyClamp(result);
+            default -> result;
+        };
+    }
+
+    private static DataObject simplifyCombiner(DataObject node, float identity, boolean multiply) {
+        var operands = new ArrayList<DataObject>();
+        flatten(node, node.getType(), operands);
+
+        float constant = identity;
+        var modules = new ArrayList<DataObject>();
+        for (var operand : operands) {
+            if (isConst(operand)) {
+                float value = getConst(operand);
+                constant = multiply ? constant * value : constant + value;
+            } else {
+                modules.add(operand);
+            }
+        }
+
+        if (multiply && constant == 0F) return constant(0F);
+        if (modules.isEmpty()) return constant(constant);
+        if (constant != identity) modules.add(constant(constant));
+        if (modules.size() == 1) return modules.get(0);
+
+        return combiner(node.getType(), modules);
+    }
+
+    private static DataObject simplifyMax(DataObject node) {
+        var modules = get(node, "modules").asList();
+        float max = Float.NEGATIVE_INFINITY;
+        for (var module : modules) {
+            if (!isConst(module.asObj())) return node;
+            max = Math.max(max, getConst(module.asObj()));
+        }
+        return constant(max);
+    }
+
+    private static DataObject simplifyScale(DataObject node) {
+        var source = get(node, "source").asObj();
+        var scale = get(node, "scale").asObj();
+        if (!isConst(scale)) return node;
+
+        float value = getConst(scale);
+        if (value == 0F) return constant(0F);
+        if (value == 1F) return source;
+        if (isConst(source)) return constant(getConst(source) * value);
+
+        // scale(scale(s, a), b) -> scale(s, a * b)
+        if (source.getType().equals("Scale") && isConst(get(source, "scale").asObj())) {
+            float inner = getConst(get(source, "scale").asObj());
+            return withField(withField(node, "source", get(source, "source")), "scale", constant(inner * value));
+        }
+
+        return node;
+    }
+
+    private static DataObject simplifyBias(DataObject node) {
+        var source = get(node, "source").asObj();
+        var bias = get(node, "bias").asObj();
+        if (!isConst(bias)) return node;
+
+        float value = getConst(bias);
+        if (value == 0F) return source;
+        if (isConst(source)) return constant(getConst(source) + value);
+
+        // bias(bias(s, a), b) -> bias(s, a + b)
+        if (source.getType().equals("Bias") && isConst(get(source, "bias").asObj())) {
+            float inner = getConst(get(source, "bias").asObj());
+            return withField(withField(node, "source", get(source, "source")), "bias", constant(inner + value));
+        }
+
+        return node;
+    }
+
+    private static DataObject simplifyAbs(DataObject node) {
+        var source = get(node, "source").asObj();
+        if (isConst(source)) return constant(Math.abs(getConst(source)));
+        if (source.getType().equals("Abs")) return source;
+        return node;
+    }
+
+    private static DataObject simplifyClamp(DataObject node) {
+        var source = get(node, "source").asObj();
+        var min = get(node, "min").asObj();
+        var max = get(node, "max").asObj();
+        if (!isConst(min) || !isConst(max)) return node;
+
+        float lower = getConst(min);
+        float upper = getConst(max);
+        if (isConst(source)) return constant(NoiseCompiler.clamp(getConst(source), lower, upper));
+
+        // clamp(clamp(s, a0, b0), a1, b1) -> clamp(s, max(a0, a1), min(b0, b1)) where the ranges overlap
+        if (source.getType().equals("Clamp")) {
+            var innerMin = get(source, "min").asObj();
+            var innerMax = get(source, "max").asObj();
+            if (isConst(innerMin) && isConst(innerMax)) {
+                float newMin = Math.max(lower, getConst(innerMin));
+                float newMax = Math.min(upper, getConst(innerMax));
+                if (newMin <= newMax) {
+                    var result = withField(node, "source", get(source, "source"));
+                    result = withField(result, "min", constant(newMin));
+                    return withField(result, "max", constant(newMax));
+                }
+            }
+        }
+
+        return node;
+    }
+
+    private static void flatten(DataObject node, String type, List<DataObject> operands) {
+        for (var module : get(node, "modules").asList()) {
+            var operand = module.asObj();
+            if (operand.getType().equals(type)) {
+                flatten(operand, type, operands);
+            } else {
+                operands.add(operand);
+            }
+        }
+    }
+
+    private static DataObject mapChildren(DataObject node, Transform transform) throws Throwable {
+        var result = new DataObject(node.getType());
+        for (var entry : node) {
+            result.add(entry.getKey(), mapValue(entry.getValue(), transform));
+        }
+        return result;
+    }
+
+    private static DataValue mapValue(DataValue value, Transform transform) throws Throwable {
+        if (value.isObj() && !value.asObj().getType().isEmpty()) {
+            return transform.apply(value.asObj());
+        }
+
+        if (value.isList()) {
+            var list = new DataList();
+            for (var element : value.asList()) {
+                list.add(mapValue(element, transform));
+            }
+            return list;
+        }
+
+        return value;
+    }
+
+    private static boolean isConst(DataObject node) {
+        return node.getType().equals("Const");
+    }
+
+    private static float getConst(DataObject node) {
+        return get(node, "value").asFloat();
+    }
+
+    private static DataObject constant(float value) {
+        var node = new DataObject("Const");
+        node.add("value", DataValue.of(value));
+        return node;
+    }
+
+    private static DataObject combiner(String type, List<DataObject> modules) {
+        var list = new DataList();
+        for (var module : modules) {
+            list.add(module);
+        }
+
+        var node = new DataObject(type);
+        node.add("modules", list);
+        return node;
+    }
+
+    private static DataObject withField(DataObject node, String key, DataValue value) {
+        var result = new DataObject(node.getType());
+        for (var entry : node) {
+            result.add(entry.getKey(), entry.getKey().equals(key) ? value : entry.getValue());
+        }
+        return result;
+    }
+
+    private static boolean hasField(DataObject node, String key) {
+        for (var entry : node) {
+            if (entry.getKey().equals(key)) return true;
+        }
+        return false;
+    }
+
+    private static DataValue get(DataObject node, String key) {
+        for (var entry : node) {
+            if (entry.getKey().equals(key)) return entry.getValue();
+        }
+        throw new IllegalArgumentException("Missing field '" + key + "' in " + node.getType());
+    }
+
+    private interface Transform {
+        DataObject apply(DataObject node) throws Throwable;
+    }
+}
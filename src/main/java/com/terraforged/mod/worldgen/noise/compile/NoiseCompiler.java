@@ -0,0 +1,307 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise.compile;
+
+import com.terraforged.cereal.Cereal;
+import com.terraforged.cereal.spec.Context;
+import com.terraforged.cereal.value.DataObject;
+import com.terraforged.cereal.value.DataValue;
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.TerraForged;
+import com.terraforged.mod.util.DataUtil;
+import com.terraforged.noise.Module;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a Module graph into a generated hidden class with a single flat getValue method.
+ * <p>
+ * The graph is read from its serialized form. Arithmetic nodes (Const, Add, Mult, Max, Scale, Bias,
+ * Abs, Clamp) and domain warps are emitted as inline bytecode, while any other node (eg the noise
+ * sources themselves) is kept as an opaque leaf module that the generated code calls directly.
+ * <p>
+ * Every compiled graph is checked against the interpreted graph before use, and the interpreted
+ * graph is returned if they disagree or anything goes wrong. Compiled graphs are cached by their
+ * serialized form.
+ */
+public class NoiseCompiler {
+    public static final boolean ENABLED = Environment.hasFlag("compile_noise");
+
+    private static final int CACHE_SIZE = 256;
+    private static final int VERIFY_SAMPLES = 256;
+    private static final float VERIFY_TOLERANCE = 1E-5F;
+
+    private static final String CLASS_NAME = Type.getInternalName(NoiseCompiler.class).replace("NoiseCompiler", "CompiledModule");
+    private static final String MODULE = Type.getInternalName(Module.class);
+    private static final String MODULE_ARRAY = Type.getDescriptor(Module[].class);
+    private static final String MODULE_DESC = Type.getDescriptor(Module.class);
+    private static final String HELPERS = Type.getInternalName(NoiseCompiler.class);
+
+    private static final Map<String, Module> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Module> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    /**
+     * Returns the compiled form of the module if compilation is enabled, otherwise the module itself.
+     */
+    public static Module compileIfEnabled(Module module) {
+        return ENABLED ? compile(module) : module;
+    }
+
+    public static Module compile(Module module) {
+        String key = null;
+        Module compiled;
+
+        try {
+            var data = Cereal.serialize(module).asObj();
+            key = DataUtil.toJson(data).toString();
+
+            var cached = CACHE.get(key);
+            if (cached != null) return cached;
+
+            compiled = compile(data);
+            if (!verify(module, compiled, VERIFY_TOLERANCE)) {
+                TerraForged.LOG.warn("Compiled noise diverged from the interpreted graph, using interpreted: {}", key);
+                compiled = module;
+            }
+        } catch (Throwable t) {
+            TerraForged.LOG.warn("Failed to compile noise graph, using interpreted", t);
+            compiled = module;
+        }
+
+        // Failures are cached too so that re-seeding the same graph doesn't retry (and warn) again
+        if (key != null) {
+            CACHE.put(key, compiled);
+        }
+
+        return compiled;
+    }
+
+    public static Module compile(DataObject data) throws Throwable {
+        var generator = new Generator();
+        byte[] bytes = generator.generate(data);
+
+        var lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+        var constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Module[].class));
+
+        return (Module) constructor.invoke(generator.leaves.toArray(Module[]::new));
+    }
+
+    static boolean verify(Module expected, Module actual, float tolerance) {
+        long seed = 1234567L;
+        for (int i = 0; i < VERIFY_SAMPLES; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            float x = (int) (seed >> 40) * 0.37F;
+            float z = (int) (seed >> 16 & 0xFFFFFF) * 0.37F - 3_000_000F;
+
+            float a = expected.getValue(x, z);
+            float b = actual.getValue(x, z);
+            if (Math.abs(a - b) > tolerance) return false;
+        }
+        return true;
+    }
+
+    // Helpers invoked from the generated code
+
+    public static float clamp(float value, float min, float max) {
+        if (value < min) return min;
+        if (value > max) return max;
+        return value;
+    }
+
+    private static class Generator {
+        private final List<Module> leaves = new ArrayList<>();
+        private int nextLocal = 3;
+        private int maxLocals = 3;
+
+        private byte[] generate(DataObject data) throws Throwable {
+            var writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+            writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null, "java/lang/Object", new String[]{MODULE});
+
+            // Generate the method body first so that the leaf fields are known
+            var method = writer.visitMethod(Opcodes.ACC_PUBLIC, "getValue", "(FF)F", null, null);
+            method.visitCode();
+            emit(data, 1, 2, method);
+            method.visitInsn(Opcodes.FRETURN);
+            method.visitMaxs(0, maxLocals);
+            method.visitEnd();
+
+            for (int i = 0; i < leaves.size(); i++) {
+                writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "l" + i, MODULE_DESC, null, null).visitEnd();
+            }
+
+            var init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + MODULE_ARRAY + ")V", null, null);
+            init.visitCode();
+            init.visitVarInsn(Opcodes.ALOAD, 0);
+            init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            for (int i = 0; i < leaves.size(); i++) {
+                init.visitVarInsn(Opcodes.ALOAD, 0);
+                init.visitVarInsn(Opcodes.ALOAD, 1);
+                init.visitLdcInsn(i);
+                init.visitInsn(Opcodes.AALOAD);
+                init.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, "l" + i, MODULE_DESC);
+            }
+            init.visitInsn(Opcodes.RETURN);
+            init.visitMaxs(0, 0);
+            init.visitEnd();
+
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+
+        /**
+         * Emits code that leaves the node's value (sampled at the coords held in the given locals) on the stack.
+         */
+        private void emit(DataObject node, int x, int z, MethodVisitor method) throws Throwable {
+            var fields = getFields(node);
+
+            switch (node.getType()) {
+                case "Const" -> method.visitLdcInsn(fields.get("value").asFloat());
+                case "Add" -> emitCombiner(fields.get("modules"), Opcodes.FADD, x, z, method);
+                case "Mult" -> emitCombiner(fields.get("modules"), Opcodes.FMUL, x, z, method);
+                case "Max" -> emitCombiner(fields.get("modules"), -1, x, z, method);
+                case "Scale" -> {
+                    emit(fields.get("source").asObj(), x, z, method);
+                    emit(fields.get("scale").asObj(), x, z, method);
+                    method.visitInsn(Opcodes.FMUL);
+                }
+                case "Bias" -> {
+                    emit(fields.get("source").asObj(), x, z, method);
+                    emit(fields.get("bias").asObj(), x, z, method);
+                    method.visitInsn(Opcodes.FADD);
+                }
+                case "Abs" -> {
+                    emit(fields.get("source").asObj(), x, z, method);
+                    method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Math", "abs", "(F)F", false);
+                }
+                case "Clamp" -> {
+                    emit(fields.get("source").asObj(), x, z, method);
+                    emit(fields.get("min").asObj(), x, z, method);
+                    emit(fields.get("max").asObj(), x, z, method);
+                    method.visitMethodInsn(Opcodes.INVOKESTATIC, HELPERS, "clamp", "(FFF)F", false);
+                }
+                case "Warp" -> emitWarp(node, fields, x, z, method);
+                default -> emitLeaf(node, x, z, method);
+            }
+        }
+
+        private void emitCombiner(DataValue modules, int opcode, int x, int z, MethodVisitor method) throws Throwable {
+            var list = modules.asList();
+            for (int i = 0; i < list.size(); i++) {
+                emit(list.get(i).asObj(), x, z, method);
+
+                if (i == 0) continue;
+
+                if (opcode == -1) {
+                    method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Math", "max", "(FF)F", false);
+                } else {
+                    method.visitInsn(opcode);
+                }
+            }
+        }
+
+        private void emitWarp(DataObject node, Map<String, DataValue> fields, int x, int z, MethodVisitor method) throws Throwable {
+            var domain = fields.get("domain").asObj();
+            if (!domain.getType().equals("DomainWarp")) {
+                emitLeaf(node, x, z, method);
+                return;
+            }
+
+            var domainFields = getFields(domain);
+            int wx = allocateLocal();
+            int wz = allocateLocal();
+
+            // wx = x + domain.x(x, z) * distance(x, z)
+            method.visitVarInsn(Opcodes.FLOAD, x);
+            emit(domainFields.get("x").asObj(), x, z, method);
+            emit(domainFields.get("distance").asObj(), x, z, method);
+            method.visitInsn(Opcodes.FMUL);
+            method.visitInsn(Opcodes.FADD);
+            method.visitVarInsn(Opcodes.FSTORE, wx);
+
+            // wz = z + domain.y(x, z) * distance(x, z)
+            method.visitVarInsn(Opcodes.FLOAD, z);
+            emit(domainFields.get("y").asObj(), x, z, method);
+            emit(domainFields.get("distance").asObj(), x, z, method);
+            method.visitInsn(Opcodes.FMUL);
+            method.visitInsn(Opcodes.FADD);
+            method.visitVarInsn(Opcodes.FSTORE, wz);
+
+            emit(fields.get("source").asObj(), wx, wz, method);
+            nextLocal -= 2;
+        }
+
+        private void emitLeaf(DataObject node, int x, int z, MethodVisitor method) throws Throwable {
+            var module = getLeaf(node);
+            int index = leaves.size();
+            leaves.add(module);
+
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME, "l" + index, MODULE_DESC);
+            method.visitVarInsn(Opcodes.FLOAD, x);
+            method.visitVarInsn(Opcodes.FLOAD, z);
+            method.visitMethodInsn(Opcodes.INVOKEINTERFACE, MODULE, "getValue", "(FF)F", true);
+        }
+
+        /**
+         * Shared modules are bound as the existing instance so that the compiled graph shares its
+         * per-sample memo with every other graph referencing it. Other leaves are rebuilt.
+         */
+        private static Module getLeaf(DataObject node) throws Throwable {
+            if (node.getType().equals("Shared")) {
+                return ModuleOptimizer.getShared(getFields(node).get("id").asInt());
+            }
+            return Cereal.deserialize(node, Module.class, Context.NONE);
+        }
+
+        private int allocateLocal() {
+            int local = nextLocal++;
+            maxLocals = Math.max(maxLocals, nextLocal);
+            return local;
+        }
+
+        private static Map<String, DataValue> getFields(DataObject node) {
+            var fields = new HashMap<String, DataValue>();
+            for (var entry : node) {
+                fields.put(entry.getKey(), entry.getValue());
+            }
+            return fields;
+        }
+    }
+}
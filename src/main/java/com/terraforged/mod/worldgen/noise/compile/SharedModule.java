@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise.compile;
+
+import com.terraforged.cereal.spec.DataSpec;
+import com.terraforged.cereal.value.DataValue;
+import com.terraforged.noise.Module;
+
+/**
+ * A module shared between every graph containing a structurally identical sub-graph. It remembers
+ * the last value it computed on each thread so that repeat evaluations at the same coordinates
+ * (eg by several terrains being blended at the same position) are only computed once.
+ */
+public class SharedModule implements Module {
+    public static final DataSpec<SharedModule> SPEC = DataSpec.builder(
+                    "Shared",
+                    SharedModule.class,
+                    (data, spec, context) -> ModuleOptimizer.getShared(spec.get("id", data, DataValue::asInt))
+            )
+            .add("id", 0, SharedModule::id)
+            .build();
+
+    private final int id;
+    private final Module source;
+    private final ThreadLocal<Memo> localMemo = ThreadLocal.withInitial(Memo::new);
+
+    public SharedModule(int id, Module source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public Module source() {
+        return source;
+    }
+
+    @Override
+    public float getValue(float x, float z) {
+        var memo = localMemo.get();
+        if (memo.valid && memo.x == x && memo.z == z) {
+            return memo.value;
+        }
+
+        float value = source.getValue(x, z);
+        memo.x = x;
+        memo.z = z;
+        memo.value = value;
+        memo.valid = true;
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "SharedModule{" +
+                "id=" + id +
+                ", source=" + source +
+                '}';
+    }
+
+    private static class Memo {
+        private boolean valid;
+        private float x;
+        private float z;
+        private float value;
+    }
+}
@@ -35,8 +35,9 @@ public class ContinentGenerator {
     private final float jitter;
     private final float threshold;
     private final Module falloff;
+    private final Module edgeFalloff;
     private final float centreX, centreY;
-    private final ThreadLocal<long[]> buffer = ThreadLocal.withInitial(() -> new long[25]);
+    private final ThreadLocal<CellCache> cellCache = ThreadLocal.withInitial(CellCache::new);
     private final LossyCache<Mesh> meshCache = new LossyCache.Concurrent<>(1024, Mesh[]::new, m -> {});
 
     public ContinentGenerator(int seed, float jitter, float threshold, Module falloff) {
@@ -46,6 +47,7 @@ public class ContinentGenerator {
         this.jitter = jitter;
         this.threshold = threshold;
         this.falloff = falloff;
+        this.edgeFalloff = Source.simplex(seed + 12963845, 5, 1).clamp(0.1, 0.9).map(0.01, 0.5);
 
         this.centreX = PosUtil.unpackLeftf(centre);
         this.centreY = PosUtil.unpackRightf(centre);
@@ -58,33 +60,31 @@ public class ContinentGenerator {
         int ix = NoiseUtil.floor(x);
         int iy = NoiseUtil.floor(y);
 
+        var cells = cellCache.get();
+        if (cells.ix != ix || cells.iy != iy) {
+            cells.init(ix, iy, seed, jitter, threshold);
+        }
+
         float min0 = Float.MAX_VALUE;
         float min1 = Float.MAX_VALUE;
-        var data = buffer.get();
-
-        for (int cy = iy - 2, i = 0; cy <= iy + 2; cy++) {
-            for (int cx = ix - 2; cx <= ix + 2; cx++, i++) {
-                int hash = MathUtil.hash(seed, cx, cy);
-                float px = MathUtil.getPosX(hash, cx, jitter);
-                float py = MathUtil.getPosY(hash, cy, jitter);
+        var distance = cells.distance;
 
-                float value = getDensity(hash, threshold);
-                float dist = NoiseUtil.sqrt(NoiseUtil.dist2(x, y, px, py));
+        for (int i = 0; i < CellCache.SIZE; i++) {
+            float dist = NoiseUtil.sqrt(NoiseUtil.dist2(x, y, cells.posX[i], cells.posY[i]));
 
-                data[i] = PosUtil.packf(value, dist);
+            distance[i] = dist;
 
-                if (dist < min0) {
-                    min1 = min0;
-                    min0 = dist;
-                } else if (dist < min1) {
-                    min1 = dist;
-                }
+            if (dist < min0) {
+                min1 = min0;
+                min0 = dist;
+            } else if (dist < min1) {
+                min1 = dist;
             }
         }
 
-        float value = Source.simplex(seed + 12963845, 5, 1).clamp(0.1, 0.9).map(0.01, 0.5).getValue(x, y);
+        float value = edgeFalloff.getValue(x, y);
 
-        return getEdge(min0, min1, value, data);
+        return getEdge(min0, min1, value, cells.density, distance);
     }
 
     public float getRiverValue(float x, float y) {
@@ -162,18 +162,16 @@ public class ContinentGenerator {
         return MathUtil.rand(hash) > threshold ? 1 : 0;
     }
 
-    private static float getEdge(float min0, float min1, float falloff, long[] data) {
+    private static float getEdge(float min0, float min1, float falloff, float[] density, float[] distance) {
         float borderDistance = (min0 + min1) * 0.5F;
         float blendRadius = borderDistance * falloff;
 
         float sumValue = 0f;
         float sumWeight = 0f;
 
-        for (long l : data) {
-            float value = PosUtil.unpackLeftf(l);
-            float distance = PosUtil.unpackRightf(l);
-            float weight = getWeight(distance, min0, blendRadius);
-            sumValue += value * weight;
+        for (int i = 0; i < CellCache.SIZE; i++) {
+            float weight = getWeight(distance[i], min0, blendRadius);
+            sumValue += density[i] * weight;
             sumWeight += weight;
         }
 
@@ -205,4 +203,34 @@ public class ContinentGenerator {
         if (delta >= blendRange) return 0F;
         return 1 - (delta / blendRange);
     }
+
+    /**
+     * Holds the jittered positions and densities of the 5x5 cells surrounding the last cell that the
+     * owning thread sampled. Consecutive samples within the same continent cell only need to recompute
+     * the distances.
+     */
+    private static class CellCache {
+        private static final int SIZE = 25;
+
+        private int ix = Integer.MIN_VALUE;
+        private int iy = Integer.MIN_VALUE;
+        private final float[] posX = new float[SIZE];
+        private final float[] posY = new float[SIZE];
+        private final float[] density = new float[SIZE];
+        private final float[] distance = new float[SIZE];
+
+        private void init(int ix, int iy, int seed, float jitter, float threshold) {
+            this.ix = ix;
+            this.iy = iy;
+
+            for (int cy = iy - 2, i = 0; cy <= iy + 2; cy++) {
+                for (int cx = ix - 2; cx <= ix + 2; cx++, i++) {
+                    int hash = MathUtil.hash(seed, cx, cy);
+                    posX[i] = MathUtil.getPosX(hash, cx, jitter);
+                    posY[i] = MathUtil.getPosY(hash, cy, jitter);
+                    density[i] = getDensity(hash, threshold);
+                }
+            }
+        }
+    }
 }
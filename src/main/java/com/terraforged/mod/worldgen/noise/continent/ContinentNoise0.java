@@ -25,6 +25,7 @@
 package com.terraforged.mod.worldgen.noise.continent;
 
 import com.terraforged.engine.cell.Cell;
+import com.terraforged.engine.util.pos.PosUtil;
 import com.terraforged.engine.world.GeneratorContext;
 import com.terraforged.engine.world.heightmap.ControlPoints;
 import com.terraforged.engine.world.rivermap.Rivermap;
@@ -35,6 +36,7 @@ import com.terraforged.engine.world.terrain.TerrainType;
 import com.terraforged.mod.worldgen.noise.IContinentNoise;
 import com.terraforged.mod.worldgen.noise.NoiseSample;
 import com.terraforged.mod.worldgen.noise.RiverCache;
+import com.terraforged.mod.worldgen.noise.WarpCache;
 import com.terraforged.noise.Source;
 import com.terraforged.noise.domain.Domain;
 import com.terraforged.noise.util.NoiseUtil;
@@ -49,6 +51,7 @@ public class ContinentNoise0 implements IContinentNoise {
 
     protected final Domain warp;
     protected final float frequency;
+    protected final WarpCache warpCache;
 
     public ContinentNoise0(GeneratorContext context) {
         this.context = context;
@@ -74,26 +77,23 @@ public class ContinentNoise0 implements IContinentNoise {
                         .build(Source.SIMPLEX2),
                 Source.constant(strength)
         );
+        this.warpCache = new WarpCache(warp, frequency);
     }
 
     @Override
     public float getEdgeValue(float x, float z) {
-        float px = warp.getX(x, z);
-        float py = warp.getY(x, z);
-
-        px *= frequency;
-        py *= frequency;
+        var warped = warpCache.get(x, z);
+        float px = PosUtil.unpackLeftf(warped);
+        float py = PosUtil.unpackRightf(warped);
 
         return generator.getEdgeValue(px, py);
     }
 
     @Override
     public long getNearestCenter(float x, float z) {
-        float px = warp.getX(x, z);
-        float py = warp.getY(x, z);
-
-        px *= frequency;
-        py *= frequency;
+        var warped = warpCache.get(x, z);
+        float px = PosUtil.unpackLeftf(warped);
+        float py = PosUtil.unpackRightf(warped);
 
         return generator.getNearest(px, py);
     }
@@ -110,26 +110,28 @@ public class ContinentNoise0 implements IContinentNoise {
 
     @Override
     public void sampleContinent(float x, float y, NoiseSample sample) {
-        float px = warp.getX(x, y);
-        float py = warp.getY(x, y);
-
-        px *= frequency;
-        py *= frequency;
+        var warped = warpCache.get(x, y);
+        float px = PosUtil.unpackLeftf(warped);
+        float py = PosUtil.unpackRightf(warped);
 
         sample.continentNoise = generator.getEdgeValue(px, py);
         sample.terrainType = getTerrainType(sample);
     }
 
+    @Override
+    public void setContinentNoise(float continentNoise, NoiseSample sample) {
+        sample.continentNoise = continentNoise;
+        sample.terrainType = getTerrainType(sample);
+    }
+
     @Override
     public void sampleRiver(float x, float y, NoiseSample sample, RiverCache cache) {
         if (sample.continentNoise <= 0) return;
         if (true) return;
 
-        float px = warp.getX(x, y);
-        float py = warp.getY(x, y);
-
-        px *= frequency;
-        py *= frequency;
+        var warped = warpCache.get(x, y);
+        float px = PosUtil.unpackLeftf(warped);
+        float py = PosUtil.unpackRightf(warped);
 
         float height = sample.heightNoise;
         float river = NoiseUtil.sqrt(generator.getRiverValue(px, py));
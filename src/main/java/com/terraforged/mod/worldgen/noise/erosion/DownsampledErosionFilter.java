@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise.erosion;
+
+import com.terraforged.engine.settings.FilterSettings;
+import com.terraforged.engine.util.FastRandom;
+import com.terraforged.mod.util.MathUtil;
+
+/**
+ * Runs droplet erosion on a 2x downsampled copy of the tile and adds the resulting height change
+ * back to the full resolution tile using bicubic (Catmull-Rom) upsampling.
+ * <p>
+ * The brush radius & droplet lifetime are halved along with the resolution so that droplets cover
+ * roughly the same distance & footprint in blocks, touching around a quarter as many cells.
+ */
+public class DownsampledErosionFilter implements IErosionFilter {
+    private final ErosionFilter erosion;
+
+    public DownsampledErosionFilter(int seed, NoiseTileSize tileSize, int erosionRadius, FilterSettings.Erosion settings) {
+        settings.dropletLifetime = Math.max(1, settings.dropletLifetime / 2);
+        this.erosion = new ErosionFilter(seed, tileSize.regionLength >> 1, Math.max(2, (erosionRadius + 1) / 2), 1, settings);
+    }
+
+    @Override
+    public void apply(float[] map, int chunkX, int chunkZ, NoiseTileSize size, ErosionFilter.Resource resource, FastRandom random) {
+        int length = size.regionLength;
+        int half = length >> 1;
+
+        // The buffer is split into the low resolution map, its original heights, and the
+        // intermediate (upsampled along x only) rows of the delta
+        float[] buffer = resource.getDeltaBuffer(length * length);
+        int originalOffset = half * half;
+        int rowsOffset = originalOffset * 2;
+
+        for (int z = 0; z < half; z++) {
+            for (int x = 0; x < half; x++) {
+                int index = (z << 1) * length + (x << 1);
+                float sum = map[index] + map[index + 1] + map[index + length] + map[index + length + 1];
+                buffer[z * half + x] = sum * 0.25F;
+            }
+        }
+        System.arraycopy(buffer, 0, buffer, originalOffset, originalOffset);
+
+        erosion.apply(buffer, chunkX, chunkZ, size, resource, random);
+
+        for (int i = 0; i < originalOffset; i++) {
+            buffer[i] -= buffer[originalOffset + i];
+        }
+
+        // Upsample along x: each low resolution row becomes a full length row
+        for (int z = 0; z < half; z++) {
+            int row = z * half;
+            int out = rowsOffset + z * length;
+            for (int x = 0; x < length; x++) {
+                float u = x * 0.5F - 0.25F;
+                int iu = (int) Math.floor(u);
+                float t = u - iu;
+                buffer[out + x] = sample(buffer, row, 1, iu, half, t);
+            }
+        }
+
+        // Upsample along z & apply
+        for (int z = 0; z < length; z++) {
+            float v = z * 0.5F - 0.25F;
+            int iv = (int) Math.floor(v);
+            float t = v - iv;
+            for (int x = 0; x < length; x++) {
+                map[z * length + x] += sample(buffer, rowsOffset + x, length, iv, half, t);
+            }
+        }
+    }
+
+    private static float sample(float[] buffer, int offset, int stride, int i, int count, float t) {
+        float p0 = buffer[offset + MathUtil.clamp(i - 1, 0, count - 1) * stride];
+        float p1 = buffer[offset + MathUtil.clamp(i, 0, count - 1) * stride];
+        float p2 = buffer[offset + MathUtil.clamp(i + 1, 0, count - 1) * stride];
+        float p3 = buffer[offset + MathUtil.clamp(i + 2, 0, count - 1) * stride];
+        return MathUtil.cubic(p0, p1, p2, p3, t);
+    }
+}
@@ -24,45 +24,54 @@
 
 package com.terraforged.mod.worldgen.noise.erosion;
 
-import com.terraforged.engine.settings.FilterSettings;
 import com.terraforged.engine.util.pos.PosUtil;
 import com.terraforged.engine.world.terrain.Terrain;
-import com.terraforged.mod.util.ObjectPool;
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.util.map.CacheStats;
 import com.terraforged.mod.util.map.LossyCache;
 import com.terraforged.mod.worldgen.noise.*;
 import com.terraforged.mod.worldgen.terrain.TerrainLevels;
+import com.terraforged.mod.worldgen.util.PlayerTracker;
 import com.terraforged.mod.worldgen.util.ThreadPool;
+import com.terraforged.mod.worldgen.util.WorkerPool.Urgency;
 
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 public class ErodedNoiseGenerator implements INoiseGenerator {
-    private static final int CACHE_SIZE = 256;
-    private static final Supplier<float[]> CHUNK_ALLOCATOR = () -> new float[16 * 16];
+    private static final int MIN_CACHE_SIZE = 256;
+    // Zero sizes the cache automatically from the worker count & view distance
+    private static final int CACHE_SIZE = Environment.getInt("erosion_cache_size", 0);
+    private static final int CACHE_WAYS = Environment.getInt("erosion_cache_ways", 4);
+    // Used until the level reports its actual view distance
+    private static final int DEFAULT_VIEW_DISTANCE = 10;
+    private static final boolean SHARED_TILES = Environment.hasFlag("shared_erosion_tiles");
     private static final IntFunction<CompletableFuture<float[]>[]> CHUNK_TASK_ALLOCATOR = CompletableFuture[]::new;
 
+    protected final int seed;
     protected final NoiseTileSize tileSize;
-    protected final ErosionFilter erosion;
     protected final NoiseGenerator generator;
-    protected final ThreadLocal<NoiseSample> localSample;
-    protected final ThreadLocal<NoiseResource> localResource;
+    // Tiers are created on first use as most worlds only ever use the default one
+    protected final Tier[] tiers = new Tier[ErosionQuality.values().length];
 
-    protected final ObjectPool<float[]> pool;
-    protected final LossyCache<CompletableFuture<float[]>> cache;
+    // Pre-erosion chunk heightmaps, shared by all quality tiers. Evicted heightmaps are left to the
+    // GC rather than pooled as erosion tasks may still be about to copy them
+    protected volatile LossyCache<CompletableFuture<float[]>> cache;
+    protected volatile int viewDistance = DEFAULT_VIEW_DISTANCE;
+    protected final CacheStats cacheStats = new CacheStats("Erosion Cache:");
 
     public ErodedNoiseGenerator(long seed, NoiseTileSize tileSize, NoiseGenerator generator) {
-        var settings = new FilterSettings.Erosion();
-        settings.dropletsPerChunk = 350;
-
+        this.seed = (int) seed;
         this.tileSize = tileSize;
         this.generator = generator;
-        this.erosion = new ErosionFilter((int) seed, tileSize.regionLength, settings);
-        this.localSample = ThreadLocal.withInitial(NoiseSample::new);
-        this.localResource = ThreadLocal.withInitial(() -> new NoiseResource(tileSize));
-        this.pool = new ObjectPool<>(CACHE_SIZE, CHUNK_ALLOCATOR);
-        this.cache = LossyCache.concurrent(CACHE_SIZE, CHUNK_TASK_ALLOCATOR, this::restore);
+
+        this.cache = createCache(tileSize, viewDistance);
     }
 
     @Override
@@ -75,6 +84,22 @@ public class ErodedNoiseGenerator implements INoiseGenerator {
         return generator.getLevels();
     }
 
+    @Override
+    public PlayerTracker getPlayerTracker() {
+        return generator.getPlayerTracker();
+    }
+
+    /**
+     * Replaces the chunk cache with one sized for the new view distance. Entries are not carried
+     * over; tasks still running complete for their callers & are regenerated if requested again.
+     */
+    @Override
+    public void setViewDistance(int viewDistance) {
+        if (viewDistance != this.viewDistance) {
+            resizeCache(viewDistance);
+        }
+    }
+
     @Override
     public IContinentNoise getContinent() {
         return generator.getContinent();
@@ -95,26 +120,119 @@ public class ErodedNoiseGenerator implements INoiseGenerator {
         return generator.find(x, z, minRadius, maxRadius, terrain);
     }
 
+    @Override
+    public void addDebugInfo(List<String> lines) {
+        var cache = this.cache;
+        cacheStats.addDebugInfo(cache.size(), cache.capacity(), lines);
+
+        for (var tier : tiers) {
+            if (tier != null && tier.tiles != null) {
+                tier.tiles.addDebugInfo(lines);
+            }
+        }
+    }
+
     @Override
     public void generate(int chunkX, int chunkZ, Consumer<NoiseData> consumer) {
         try {
-            var resource = localResource.get();
+            generateAsync(chunkX, chunkZ, noiseData -> {
+                consumer.accept(noiseData);
+                return null;
+            }, Runnable::run).join();
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+    }
 
-            collectNeighbours(chunkX, chunkZ, resource);
-            generateCenterChunk(chunkX, chunkZ, resource);
-            awaitNeighbours(resource);
+    /**
+     * Erosion needs the pre-erosion heightmaps of the surrounding chunks. Rather than blocking
+     * a worker while they generate, the erosion & river passes are chained onto the completion
+     * of all neighbour tasks and run on the provided executor once they're available.
+     */
+    @Override
+    public <T> CompletableFuture<T> generateAsync(int chunkX, int chunkZ, Function<NoiseData, T> function, Executor executor) {
+        return generateAsync(chunkX, chunkZ, ErosionQuality.DEFAULT, function, executor);
+    }
 
-            generateErosion(chunkX, chunkZ, resource);
-            generateRivers(chunkX, chunkZ, resource);
+    @Override
+    public <T> CompletableFuture<T> generateAsync(int chunkX, int chunkZ, ErosionQuality quality, Function<NoiseData, T> function, Executor executor) {
+        var tier = getTier(quality);
+        if (tier.tiles != null) {
+            return generateTiledAsync(chunkX, chunkZ, tier, function, executor);
+        }
 
-            consumer.accept(resource.chunk);
-        } catch (Throwable t) {
-            t.printStackTrace();
+        var tileSize = tier.tileSize;
+        var neighbours = CHUNK_TASK_ALLOCATOR.apply(tileSize.chunkSize);
+        var dependencies = collectNeighbours(chunkX, chunkZ, tileSize, neighbours);
+
+        return CompletableFuture.allOf(dependencies).thenApplyAsync(v -> {
+            var resource = tier.localResource.get();
+
+            generateCenterChunk(chunkX, chunkZ, tileSize, resource);
+            copyNeighbours(neighbours, tileSize, resource);
+
+            generateErosion(chunkX, chunkZ, tier, resource);
+            generateRivers(chunkX, chunkZ, tileSize, resource);
+
+            return function.apply(resource.chunk);
+        }, executor);
+    }
+
+    /**
+     * Shared tile mode: rather than eroding a full neighbourhood for every chunk, the erosion delta
+     * of the aligned tile(s) covering the chunk is computed once and applied to the chunk's own
+     * heightmap, blending between tiles near their edges.
+     */
+    protected <T> CompletableFuture<T> generateTiledAsync(int chunkX, int chunkZ, Tier tier, Function<NoiseData, T> function, Executor executor) {
+        var tiles = tier.tiles;
+        var tileSize = tier.tileSize;
+
+        int startX = chunkX << 4;
+        int startZ = chunkZ << 4;
+
+        // Tiles covering the chunk's border columns plus anything within blending distance of them
+        int minTileX = tiles.getTile(startX - 1 - ErosionTiles.BLEND_RADIUS);
+        int minTileZ = tiles.getTile(startZ - 1 - ErosionTiles.BLEND_RADIUS);
+        int maxTileX = tiles.getTile(startX + 16 + ErosionTiles.BLEND_RADIUS);
+        int maxTileZ = tiles.getTile(startZ + 16 + ErosionTiles.BLEND_RADIUS);
+        int tilesWidth = maxTileX - minTileX + 1;
+
+        @SuppressWarnings("unchecked")
+        var deltas = (CompletableFuture<float[]>[]) new CompletableFuture[tilesWidth * (maxTileZ - minTileZ + 1)];
+        for (int tz = minTileZ, i = 0; tz <= maxTileZ; tz++) {
+            for (int tx = minTileX; tx <= maxTileX; tx++) {
+                deltas[i++] = tiles.getDelta(tx, tz);
+            }
         }
+
+        return CompletableFuture.allOf(deltas).thenApplyAsync(v -> {
+            var resource = tier.localResource.get();
+            var tileDeltas = new float[deltas.length][];
+            for (int i = 0; i < deltas.length; i++) {
+                tileDeltas[i] = deltas[i].join();
+            }
+
+            generateCenterChunk(chunkX, chunkZ, tileSize, resource);
+
+            int min = resource.chunk.min();
+            int max = resource.chunk.max();
+            for (int dz = min; dz < max; dz++) {
+                for (int dx = min; dx < max; dx++) {
+                    int tileIndex = tileSize.indexOfRel(dx, dz);
+                    resource.heightmap[tileIndex] += tiles.getBlendedDelta(startX + dx, startZ + dz, minTileX, minTileZ, tilesWidth, tileDeltas);
+                }
+            }
+
+            generateRivers(chunkX, chunkZ, tileSize, resource);
+
+            return function.apply(resource.chunk);
+        }, executor);
     }
 
-    protected void collectNeighbours(int chunkX, int chunkZ, NoiseResource resource) {
-        for (int dz = tileSize.chunkMin; dz < tileSize.chunkMax; dz++) {
+    protected CompletableFuture<?>[] collectNeighbours(int chunkX, int chunkZ, NoiseTileSize tileSize, CompletableFuture<float[]>[] neighbours) {
+        var dependencies = new CompletableFuture<?>[tileSize.chunkSize - 1];
+
+        for (int dz = tileSize.chunkMin, i = 0; dz < tileSize.chunkMax; dz++) {
             for (int dx = tileSize.chunkMin; dx < tileSize.chunkMax; dx++) {
                 if (dx == 0 && dz == 0) continue;
 
@@ -122,12 +240,15 @@ public class ErodedNoiseGenerator implements INoiseGenerator {
 
                 int cx = chunkX + dx;
                 int cz = chunkZ + dz;
-                resource.chunkCache[tileIndex] = getChunk(cx, cz);
+                neighbours[tileIndex] = getChunk(cx, cz);
+                dependencies[i++] = neighbours[tileIndex];
             }
         }
+
+        return dependencies;
     }
 
-    protected void generateCenterChunk(int chunkX, int chunkZ, NoiseResource resource) {
+    protected void generateCenterChunk(int chunkX, int chunkZ, NoiseTileSize tileSize, NoiseResource resource) {
         var blender = generator.getBlenderResource();
 
         int startX = chunkX << 4;
@@ -151,13 +272,14 @@ public class ErodedNoiseGenerator implements INoiseGenerator {
         }
     }
 
-    protected void awaitNeighbours(NoiseResource resource) {
+    protected void copyNeighbours(CompletableFuture<float[]>[] neighbours, NoiseTileSize tileSize, NoiseResource resource) {
         for (int cz = tileSize.chunkMin; cz < tileSize.chunkMax; cz++) {
             for (int cx = tileSize.chunkMin; cx < tileSize.chunkMax; cx++) {
                 if (cx == 0 && cz == 0) continue;
 
+                // Note: neighbour tasks have all completed by this point so join() does not block
                 int chunkIndex = tileSize.chunkIndexOfRel(cx, cz);
-                float[] chunk = resource.chunkCache[chunkIndex].join();
+                float[] chunk = neighbours[chunkIndex].join();
 
                 int relStartX = cx << 4;
                 int relStartZ = cz << 4;
@@ -171,11 +293,11 @@ public class ErodedNoiseGenerator implements INoiseGenerator {
         }
     }
 
-    protected void generateErosion(int chunkX, int chunkZ, NoiseResource resource) {
-        erosion.apply(resource.heightmap, chunkX, chunkZ, tileSize, resource.erosionResource, resource.random);
+    protected void generateErosion(int chunkX, int chunkZ, Tier tier, NoiseResource resource) {
+        tier.erosion.apply(resource.heightmap, chunkX, chunkZ, tier.tileSize, resource.erosionResource, resource.random);
     }
 
-    protected void generateRivers(int chunkX, int chunkZ, NoiseResource resource) {
+    protected void generateRivers(int chunkX, int chunkZ, NoiseTileSize tileSize, NoiseResource resource) {
         int startX = chunkX << 4;
         int startZ = chunkZ << 4;
 
@@ -201,8 +323,18 @@ public class ErodedNoiseGenerator implements INoiseGenerator {
         }
     }
 
-    protected void restore(CompletableFuture<float[]> task) {
-        task.thenAccept(pool::restore);
+    protected Tier getTier(ErosionQuality quality) {
+        var tier = tiers[quality.ordinal()];
+        if (tier != null) return tier;
+
+        synchronized (tiers) {
+            tier = tiers[quality.ordinal()];
+            if (tier == null) {
+                tier = new Tier(seed, quality, quality.getTileSize(tileSize));
+                tiers[quality.ordinal()] = tier;
+            }
+            return tier;
+        }
     }
 
     protected CompletableFuture<float[]> getChunk(int x, int z) {
@@ -210,27 +342,104 @@ public class ErodedNoiseGenerator implements INoiseGenerator {
     }
 
     protected CompletableFuture<float[]> generateChunk(final long key) {
-        return CompletableFuture.supplyAsync(() -> {
+        var task = CompletableFuture.supplyAsync(() -> {
             int chunkX = PosUtil.unpackLeft(key);
             int chunkZ = PosUtil.unpackRight(key);
 
             int startX = chunkX << 4;
             int startZ = chunkZ << 4;
 
-            float[] height = pool.take();
-            var sample = localSample.get();
+            float[] height = new float[16 * 16];
+            var row = generator.getRowResource();
             var blender = generator.getBlenderResource();
+            generator.prepareCoarse(startX, startZ, 16, row);
 
-            for (int i = 0; i < height.length; i++) {
-                int dx = i & 15;
-                int dz = i >> 4;
+            for (int dz = 0; dz < 16; dz++) {
+                generator.sampleTerrainRow(startX, startZ + dz, 16, row, blender);
 
-                float nx = getNoiseCoord(startX + dx);
-                float nz = getNoiseCoord(startZ + dz);
-                height[i] = generator.sampleTerrain(nx, nz, sample, blender).heightNoise;
+                for (int dx = 0; dx < 16; dx++) {
+                    height[dz << 4 | dx] = row.getSample(dx).heightNoise;
+                }
             }
 
             return height;
-        }, ThreadPool.EXECUTOR);
+        }, ThreadPool.EROSION.at(PosUtil.unpackLeft(key), PosUtil.unpackRight(key), Urgency.REQUIRED, getPlayerTracker()));
+
+        // Failed chunks are dropped so the next request retries them. This runs asynchronously as the
+        // task is created while the cache is locked & before it has been inserted
+        task.whenCompleteAsync((height, error) -> {
+            if (error != null) {
+                cache.remove(key, task);
+            }
+        }, ThreadPool.EROSION);
+
+        return task;
+    }
+
+    protected synchronized void resizeCache(int viewDistance) {
+        if (viewDistance == this.viewDistance) return;
+
+        this.viewDistance = viewDistance;
+
+        var resized = createCache(tileSize, viewDistance);
+        if (resized.capacity() != cache.capacity()) {
+            cache = resized;
+        }
+
+        synchronized (tiers) {
+            for (var tier : tiers) {
+                if (tier != null && tier.tiles != null) {
+                    tier.tiles.setViewDistance(viewDistance);
+                }
+            }
+        }
+    }
+
+    protected LossyCache<CompletableFuture<float[]>> createCache(NoiseTileSize tileSize, int viewDistance) {
+        int cacheSize = getCacheSize(tileSize, viewDistance);
+        return LossyCache.concurrent(cacheSize, CACHE_WAYS, CHUNK_TASK_ALLOCATOR, task -> {}, cacheStats);
+    }
+
+    /**
+     * Every worker generating an eroded chunk needs its full neighbourhood of pre-erosion chunks, and
+     * the generation frontier at the edge of the view distance sweeps a band of neighbourhoods around
+     * the loaded area. The cache is sized to hold both twice over so that neighbourhoods shared by
+     * adjacent chunks are still present when those chunks are generated.
+     */
+    protected static int getCacheSize(NoiseTileSize tileSize, int viewDistance) {
+        if (CACHE_SIZE > 0) return CACHE_SIZE;
+
+        int chunkLength = 1;
+        for (var quality : ErosionQuality.values()) {
+            chunkLength = Math.max(chunkLength, quality.getTileSize(tileSize).chunkLength);
+        }
+
+        int workers = ThreadPool.TERRAIN_THREADS + ThreadPool.EROSION_THREADS;
+        int inFlight = workers * chunkLength * chunkLength;
+        int frontier = 8 * viewDistance * chunkLength;
+
+        return Math.max(MIN_CACHE_SIZE, 2 * (inFlight + frontier));
+    }
+
+    /**
+     * The erosion filter, tile size & per-thread resources of a single quality tier.
+     */
+    protected class Tier {
+        protected final NoiseTileSize tileSize;
+        protected final IErosionFilter erosion;
+        protected final ThreadLocal<NoiseResource> localResource;
+        protected final ErosionTiles tiles;
+
+        protected Tier(int seed, ErosionQuality quality, NoiseTileSize tileSize) {
+            this.tileSize = tileSize;
+            this.erosion = quality.createFilter(seed, tileSize);
+            this.localResource = ThreadLocal.withInitial(() -> new NoiseResource(tileSize));
+            this.tiles = SHARED_TILES ? createTiles(quality, tileSize) : null;
+        }
+
+        private ErosionTiles createTiles(ErosionQuality quality, NoiseTileSize tileSize) {
+            var stats = new CacheStats("Erosion Tiles (" + quality.name().toLowerCase(Locale.ROOT) + "):");
+            return new ErosionTiles(tileSize, erosion, ErodedNoiseGenerator.this::getChunk, getPlayerTracker(), stats, viewDistance);
+        }
     }
 }
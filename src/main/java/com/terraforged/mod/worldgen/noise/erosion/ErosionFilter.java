@@ -29,13 +29,15 @@ import com.terraforged.engine.util.FastRandom;
 import com.terraforged.mod.util.MathUtil;
 import com.terraforged.noise.util.NoiseUtil;
 
-public class ErosionFilter {
+import java.util.Arrays;
+
+public class ErosionFilter implements IErosionFilter {
     private static final float HEIGHT_FALL_OFF = 0.333F;
     private static final int HEIGHT = 0;
     private static final int GRAD_X = 1;
     private static final int GRAD_Y = 2;
 
-    private static final int erosionRadius = 7;
+    private static final int DEFAULT_RADIUS = 7;
     private static final float inertia = 0.001f; // At zero, water will instantly change direction to flow downhill. At 1, water will never change direction.
     private static final float sedimentCapacityFactor = 8F; // Multiplier for how much sediment a droplet can carry
     private static final float minSedimentCapacity = 0.01f; // Used to prevent carry capacity getting too close to zero on flatter terrain
@@ -47,46 +49,78 @@ public class ErosionFilter {
     private final float initialSpeed;
     private final float initialWaterVolume;
     private final int maxDropletLifetime;
-    private final int[][] erosionBrushIndices;
-    private final float[][] erosionBrushWeights;
+    private final int erosionRadius;
+    // Number of bits the map resolution is reduced by relative to block resolution
+    private final int resolutionShift;
+    private final int chunkShift;
+    private final int chunkCells;
+    // Brush entries are stored contiguously as offsets relative to the droplet's cell. Interior
+    // cells all share the unclipped brush at the start of the tables, edge cells own a clipped copy
+    private final int[] brushStart;
+    private final int[] brushLength;
+    private final int[] brushOffsets;
+    private final float[] brushWeights;
 
     private final int seed;
     private final int iterations;
 
     public ErosionFilter(int seed, int mapSize, FilterSettings.Erosion settings) {
+        this(seed, mapSize, DEFAULT_RADIUS, settings);
+    }
+
+    public ErosionFilter(int seed, int mapSize, int erosionRadius, FilterSettings.Erosion settings) {
+        this(seed, mapSize, erosionRadius, 0, settings);
+    }
+
+    /**
+     * @param mapSize         the width of the (possibly reduced resolution) map in cells
+     * @param resolutionShift the map's resolution as a right shift of block resolution, eg 1 for a
+     *                        map at half resolution where each cell covers 2x2 blocks
+     */
+    public ErosionFilter(int seed, int mapSize, int erosionRadius, int resolutionShift, FilterSettings.Erosion settings) {
         this.seed = seed;
+        this.erosionRadius = erosionRadius;
+        this.resolutionShift = resolutionShift;
+        this.chunkShift = 4 - resolutionShift;
+        this.chunkCells = 1 << chunkShift;
         this.iterations = settings.dropletsPerChunk;
         this.erodeSpeed = settings.erosionRate;
         this.depositSpeed = settings.depositeRate;
         this.initialSpeed = settings.dropletVelocity;
         this.initialWaterVolume = settings.dropletVolume;
         this.maxDropletLifetime = settings.dropletLifetime;
-        this.erosionBrushIndices = new int[mapSize * mapSize][];
-        this.erosionBrushWeights = new float[mapSize * mapSize][];
-        initBrushes(mapSize, erosionRadius);
+        this.brushStart = new int[mapSize * mapSize];
+        this.brushLength = new int[mapSize * mapSize];
+
+        var brushes = new Brushes(mapSize, erosionRadius);
+        initBrushes(mapSize, erosionRadius, brushes);
+        this.brushOffsets = brushes.offsets;
+        this.brushWeights = brushes.weights;
     }
 
+    @Override
     public void apply(float[] map, int chunkX, int chunkZ, NoiseTileSize size, Resource resource, FastRandom random) {
-        int maxIndex = size.regionLength - 2;
+        int mapSize = size.regionLength >> resolutionShift;
+        int maxIndex = mapSize - 2;
         for (int i = 0; i < iterations; i++) {
             long iterationSeed = NoiseUtil.seed(this.seed, i);
 
             for (int dz = size.chunkMin; dz < size.chunkMax; dz++) {
-                int startZ = (dz - size.chunkMin) << 4;
+                int startZ = (dz - size.chunkMin) << chunkShift;
 
                 for (int dx = size.chunkMin; dx < size.chunkMax; dx++) {
-                    int startX = (dx - size.chunkMin) << 4;
+                    int startX = (dx - size.chunkMin) << chunkShift;
 
                     long chunkSeed = NoiseUtil.seed(chunkX + dx, chunkZ + dz);
                     random.seed(chunkSeed, iterationSeed);
 
-                    int x = startX + random.nextInt(NoiseTileSize.CHUNK_SIZE);
-                    int z = startZ + random.nextInt(NoiseTileSize.CHUNK_SIZE);
+                    int x = startX + random.nextInt(chunkCells);
+                    int z = startZ + random.nextInt(chunkCells);
 
                     x = MathUtil.clamp(x, 1, maxIndex);
                     z = MathUtil.clamp(z, 1, maxIndex);
 
-                    applyDrop(x, z, map, size.regionLength, resource);
+                    applyDrop(x, z, map, mapSize, resource);
                 }
             }
         }
@@ -158,9 +192,10 @@ public class ErosionFilter {
                 float amountToErode = Math.min((sedimentCapacity - sediment) * erodeSpeed, -deltaHeight);
 
                 // Use erosion brush to erode from all nodes inside the droplet's erosion radius
-                for (int brushPointIndex = 0; brushPointIndex < erosionBrushIndices[dropletIndex].length; brushPointIndex++) {
-                    int nodeIndex = erosionBrushIndices[dropletIndex][brushPointIndex];
-                    float weighedErodeAmount = amountToErode * erosionBrushWeights[dropletIndex][brushPointIndex];
+                int brushEnd = brushStart[dropletIndex] + brushLength[dropletIndex];
+                for (int brushPointIndex = brushStart[dropletIndex]; brushPointIndex < brushEnd; brushPointIndex++) {
+                    int nodeIndex = dropletIndex + brushOffsets[brushPointIndex];
+                    float weighedErodeAmount = amountToErode * brushWeights[brushPointIndex];
                     float deltaSediment = Math.min(map[nodeIndex], weighedErodeAmount);
                     map[nodeIndex] -= deltaSediment;
                     sediment += deltaSediment;
@@ -176,49 +211,63 @@ public class ErosionFilter {
         }
     }
 
-    private void initBrushes(int size, int radius) {
+    private void initBrushes(int size, int radius, Brushes brushes) {
         int[] xOffsets = new int[radius * radius * 4];
         int[] yOffsets = new int[radius * radius * 4];
         float[] weights = new float[radius * radius * 4];
-        float weightSum = 0;
-        int addIndex = 0;
 
-        for (int i = 0; i < erosionBrushIndices.length; i++) {
+        // The unclipped brush, shared by every cell whose brush lies entirely within the map
+        int fullLength = getBrush(radius, radius, Integer.MAX_VALUE, radius, xOffsets, yOffsets, weights);
+        brushes.add(fullLength, size, xOffsets, yOffsets, weights);
+
+        for (int i = 0; i < brushStart.length; i++) {
             int centreX = i % size;
             int centreY = i / size;
 
+            brushStart[i] = 0;
+            brushLength[i] = fullLength;
+
             if (centreY <= radius || centreY >= size - radius || centreX <= radius + 1 || centreX >= size - radius) {
-                weightSum = 0;
-                addIndex = 0;
-                for (int y = -radius; y <= radius; y++) {
-                    for (int x = -radius; x <= radius; x++) {
-                        float sqrDst = x * x + y * y;
-                        if (sqrDst < radius * radius) {
-                            int coordX = centreX + x;
-                            int coordY = centreY + y;
-
-                            if (coordX >= 0 && coordX < size && coordY >= 0 && coordY < size) {
-                                float weight = 1 - (float) Math.sqrt(sqrDst) / radius;
-                                weightSum += weight;
-                                weights[addIndex] = weight;
-                                xOffsets[addIndex] = x;
-                                yOffsets[addIndex] = y;
-                                addIndex++;
-                            }
-                        }
-                    }
+                int length = getBrush(centreX, centreY, size, radius, xOffsets, yOffsets, weights);
+
+                // Clipping only removes entries, so a brush of full length is identical to the shared one
+                if (length != fullLength) {
+                    brushStart[i] = brushes.add(length, size, xOffsets, yOffsets, weights);
+                    brushLength[i] = length;
                 }
             }
+        }
 
-            int numEntries = addIndex;
-            erosionBrushIndices[i] = new int[numEntries];
-            erosionBrushWeights[i] = new float[numEntries];
+        brushes.trim();
+    }
 
-            for (int j = 0; j < numEntries; j++) {
-                erosionBrushIndices[i][j] = (yOffsets[j] + centreY) * size + xOffsets[j] + centreX;
-                erosionBrushWeights[i][j] = weights[j] / weightSum;
+    private static int getBrush(int centreX, int centreY, int size, int radius, int[] xOffsets, int[] yOffsets, float[] weights) {
+        float weightSum = 0;
+        int addIndex = 0;
+        for (int y = -radius; y <= radius; y++) {
+            for (int x = -radius; x <= radius; x++) {
+                float sqrDst = x * x + y * y;
+                if (sqrDst < radius * radius) {
+                    int coordX = centreX + x;
+                    int coordY = centreY + y;
+
+                    if (coordX >= 0 && coordX < size && coordY >= 0 && coordY < size) {
+                        float weight = 1 - (float) Math.sqrt(sqrDst) / radius;
+                        weightSum += weight;
+                        weights[addIndex] = weight;
+                        xOffsets[addIndex] = x;
+                        yOffsets[addIndex] = y;
+                        addIndex++;
+                    }
+                }
             }
         }
+
+        for (int j = 0; j < addIndex; j++) {
+            weights[j] /= weightSum;
+        }
+
+        return addIndex;
     }
 
     private float[] grad(float[] nodes, int mapSize, float posX, float posY, float[] resource) {
@@ -249,8 +298,53 @@ public class ErosionFilter {
         return height / HEIGHT_FALL_OFF;
     }
 
+    private static class Brushes {
+        private int size;
+        private int[] offsets;
+        private float[] weights;
+
+        private Brushes(int mapSize, int radius) {
+            // Roughly enough for the clipped brushes along the four edges of the map
+            int capacity = mapSize * radius * 4 * radius * radius * 4;
+            offsets = new int[capacity];
+            weights = new float[capacity];
+        }
+
+        private int add(int length, int mapSize, int[] xOffsets, int[] yOffsets, float[] brushWeights) {
+            if (size + length > offsets.length) {
+                int capacity = Math.max(offsets.length * 2, size + length);
+                offsets = Arrays.copyOf(offsets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+
+            int start = size;
+            for (int j = 0; j < length; j++) {
+                offsets[start + j] = yOffsets[j] * mapSize + xOffsets[j];
+                weights[start + j] = brushWeights[j];
+            }
+
+            size += length;
+            return start;
+        }
+
+        private void trim() {
+            offsets = Arrays.copyOf(offsets, size);
+            weights = Arrays.copyOf(weights, size);
+        }
+    }
+
     public static class Resource {
         public final float[] grad1 = new float[3];
         public final float[] grad2 = new float[3];
+
+        // Scratch buffer for filters that accumulate changes before applying them
+        protected float[] delta = new float[0];
+
+        protected float[] getDeltaBuffer(int size) {
+            if (delta.length < size) {
+                delta = new float[size];
+            }
+            return delta;
+        }
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise.erosion;
+
+import com.terraforged.engine.settings.FilterSettings;
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.TerraForged;
+
+import java.util.Locale;
+
+/**
+ * Erosion fidelity tiers. Each tier is deterministic on its own, but tiers produce different
+ * heightmaps from one another, so results from different tiers should not be mixed within a world.
+ */
+public enum ErosionQuality {
+    /**
+     * Full droplet simulation. This is the default and matches the original erosion.
+     */
+    FULL(350, 0, 7, 2, false),
+    /**
+     * Fewer, shorter-lived droplets with a smaller brush over a smaller neighbourhood.
+     */
+    REDUCED(150, 10, 5, 1, false),
+    /**
+     * Thermal (slope based) erosion over a small neighbourhood. Much cheaper than droplets but
+     * produces no gullies or sediment fans.
+     */
+    FAST(0, 0, 0, 1, true),
+    ;
+
+    public static final ErosionQuality DEFAULT = parse(Environment.getString("erosion_quality", "full"));
+    // Runs droplet erosion at half resolution and upsamples the result
+    public static final boolean HALF_RESOLUTION = Environment.hasFlag("half_res_erosion");
+
+    public final int droplets;
+    public final int lifetime;
+    public final int brushRadius;
+    public final int tileRadius;
+    public final boolean thermal;
+
+    ErosionQuality(int droplets, int lifetime, int brushRadius, int tileRadius, boolean thermal) {
+        this.droplets = droplets;
+        this.lifetime = lifetime;
+        this.brushRadius = brushRadius;
+        this.tileRadius = tileRadius;
+        this.thermal = thermal;
+    }
+
+    /**
+     * The tile size used by this tier. The full tier uses the generator's own tile size.
+     */
+    public NoiseTileSize getTileSize(NoiseTileSize defaultSize) {
+        return this == FULL ? defaultSize : new NoiseTileSize(tileRadius);
+    }
+
+    public IErosionFilter createFilter(int seed, NoiseTileSize tileSize) {
+        if (thermal) {
+            return new ThermalErosionFilter();
+        }
+
+        var settings = new FilterSettings.Erosion();
+        settings.dropletsPerChunk = droplets;
+        if (lifetime > 0) {
+            settings.dropletLifetime = lifetime;
+        }
+
+        if (HALF_RESOLUTION) {
+            return new DownsampledErosionFilter(seed, tileSize, brushRadius, settings);
+        }
+
+        return new ErosionFilter(seed, tileSize.regionLength, brushRadius, settings);
+    }
+
+    private static ErosionQuality parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            TerraForged.LOG.warn("Unknown erosion quality: {}, using {}", name, FULL);
+            return FULL;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise.erosion;
+
+import com.terraforged.engine.util.FastRandom;
+import com.terraforged.engine.util.pos.PosUtil;
+import com.terraforged.mod.util.map.CacheStats;
+import com.terraforged.mod.util.map.LossyCache;
+import com.terraforged.mod.worldgen.util.PlayerTracker;
+import com.terraforged.mod.worldgen.util.ThreadPool;
+import com.terraforged.mod.worldgen.util.WorkerPool.Urgency;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+/**
+ * Partitions the world into aligned tiles of (chunkLength - 2)^2 chunks, each surrounded by a
+ * one chunk apron. Each tile (including its apron) is eroded exactly once and the resulting
+ * height delta is cached & shared by every chunk inside it.
+ * <p>
+ * Tiles are simulated independently so their deltas differ where they meet. To hide the seams,
+ * columns within BLEND_RADIUS blocks of a tile edge take a weighted mix of their own tile's delta
+ * and the neighbouring tile's delta (which is available because the neighbour's apron covers the
+ * column). The weights are a fixed function of the column position so the result is deterministic
+ * regardless of the order in which tiles are generated.
+ */
+public class ErosionTiles {
+    public static final int BLEND_RADIUS = 8;
+    private static final int MIN_CACHE_SIZE = 64;
+    private static final int CACHE_WAYS = 4;
+    private static final IntFunction<CompletableFuture<float[]>[]> TILE_TASK_ALLOCATOR = CompletableFuture[]::new;
+
+    protected final int tileChunks;
+    protected final int tileLength;
+    protected final NoiseTileSize tileSize;
+    protected final IErosionFilter erosion;
+    protected final ChunkSource source;
+    protected final PlayerTracker tracker;
+    protected final ThreadLocal<TileResource> localResource = ThreadLocal.withInitial(TileResource::new);
+    protected final CacheStats cacheStats;
+    protected volatile LossyCache<CompletableFuture<float[]>> cache;
+
+    public ErosionTiles(NoiseTileSize tileSize, IErosionFilter erosion, ChunkSource source, PlayerTracker tracker, CacheStats cacheStats, int viewDistance) {
+        this.tileSize = tileSize;
+        this.erosion = erosion;
+        this.source = source;
+        this.tracker = tracker;
+        this.cacheStats = cacheStats;
+        this.tileChunks = Math.max(1, tileSize.chunkLength - 2);
+        this.tileLength = tileChunks << 4;
+        this.cache = createCache(viewDistance);
+    }
+
+    /**
+     * Replaces the tile cache with one sized for the given view distance if its capacity changes.
+     */
+    public void setViewDistance(int viewDistance) {
+        var resized = createCache(viewDistance);
+        if (resized.capacity() != cache.capacity()) {
+            cache = resized;
+        }
+    }
+
+    public void addDebugInfo(List<String> lines) {
+        var cache = this.cache;
+        cacheStats.addDebugInfo(cache.size(), cache.capacity(), lines);
+    }
+
+    public int getTile(int blockCoord) {
+        return Math.floorDiv(blockCoord, tileLength);
+    }
+
+    /**
+     * Returns the (cached) erosion delta for the tile at the given tile coordinates.
+     */
+    public CompletableFuture<float[]> getDelta(int tileX, int tileZ) {
+        return cache.computeIfAbsent(PosUtil.pack(tileX, tileZ), this::generateTile);
+    }
+
+    /**
+     * Returns the blended erosion delta at the given block position. The tiles array holds the
+     * deltas of the tiles from minTileX, minTileZ onwards and must cover every tile within
+     * BLEND_RADIUS of the position.
+     */
+    public float getBlendedDelta(int x, int z, int minTileX, int minTileZ, int tilesWidth, float[][] tiles) {
+        int tileX = getTile(x);
+        int tileZ = getTile(z);
+        int u = x - tileX * tileLength;
+        int v = z - tileZ * tileLength;
+
+        float wx = getWeight(u);
+        float wz = getWeight(v);
+        int nx = u < (tileLength >> 1) ? tileX - 1 : tileX + 1;
+        int nz = v < (tileLength >> 1) ? tileZ - 1 : tileZ + 1;
+
+        float value = wx * wz * getDelta(x, z, tileX, tileZ, minTileX, minTileZ, tilesWidth, tiles);
+        if (wx < 1F) {
+            value += (1 - wx) * wz * getDelta(x, z, nx, tileZ, minTileX, minTileZ, tilesWidth, tiles);
+        }
+        if (wz < 1F) {
+            value += wx * (1 - wz) * getDelta(x, z, tileX, nz, minTileX, minTileZ, tilesWidth, tiles);
+        }
+        if (wx < 1F && wz < 1F) {
+            value += (1 - wx) * (1 - wz) * getDelta(x, z, nx, nz, minTileX, minTileZ, tilesWidth, tiles);
+        }
+
+        return value;
+    }
+
+    protected float getDelta(int x, int z, int tileX, int tileZ, int minTileX, int minTileZ, int tilesWidth, float[][] tiles) {
+        float[] delta = tiles[(tileZ - minTileZ) * tilesWidth + (tileX - minTileX)];
+
+        // Tile regions start one apron chunk before the tile itself
+        int originX = tileX * tileLength - NoiseTileSize.CHUNK_SIZE;
+        int originZ = tileZ * tileLength - NoiseTileSize.CHUNK_SIZE;
+
+        return delta[tileSize.indexOf(x - originX, z - originZ)];
+    }
+
+    /**
+     * The weight of a column's own tile. It is 1 in the tile interior and falls to 0.5 at the
+     * tile edge, the remainder going to the neighbouring tile across that edge.
+     */
+    protected float getWeight(int u) {
+        float edgeDistance = Math.min(u, tileLength - 1 - u) + 0.5F;
+        if (edgeDistance >= BLEND_RADIUS) return 1F;
+        return 0.5F + 0.5F * (edgeDistance / BLEND_RADIUS);
+    }
+
+    protected CompletableFuture<float[]> generateTile(long key) {
+        int tileX = PosUtil.unpackLeft(key);
+        int tileZ = PosUtil.unpackRight(key);
+
+        // Chunk coords of the tile region's centre chunk
+        int centreX = tileX * tileChunks - tileSize.chunkMin - 1;
+        int centreZ = tileZ * tileChunks - tileSize.chunkMin - 1;
+
+        @SuppressWarnings("unchecked")
+        var chunks = (CompletableFuture<float[]>[]) new CompletableFuture[tileSize.chunkSize];
+        for (int dz = tileSize.chunkMin; dz < tileSize.chunkMax; dz++) {
+            for (int dx = tileSize.chunkMin; dx < tileSize.chunkMax; dx++) {
+                chunks[tileSize.chunkIndexOfRel(dx, dz)] = source.getChunk(centreX + dx, centreZ + dz);
+            }
+        }
+
+        var executor = ThreadPool.EROSION.at(centreX, centreZ, Urgency.REQUIRED, tracker);
+
+        var task = CompletableFuture.allOf(chunks).thenApplyAsync(v -> {
+            var resource = localResource.get();
+            var original = new float[tileSize.regionSize];
+
+            for (int dz = tileSize.chunkMin; dz < tileSize.chunkMax; dz++) {
+                for (int dx = tileSize.chunkMin; dx < tileSize.chunkMax; dx++) {
+                    float[] chunk = chunks[tileSize.chunkIndexOfRel(dx, dz)].join();
+
+                    for (int i = 0; i < chunk.length; i++) {
+                        int index = tileSize.indexOfRel((dx << 4) + (i & 15), (dz << 4) + (i >> 4));
+                        original[index] = chunk[i];
+                    }
+                }
+            }
+
+            var delta = original.clone();
+            erosion.apply(delta, centreX, centreZ, tileSize, resource.erosion, resource.random);
+
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] -= original[i];
+            }
+
+            return delta;
+        }, executor);
+
+        // Failed tiles are dropped so the next request retries them. Runs asynchronously as this is
+        // called while the cache is locked & before the task has been inserted
+        task.whenCompleteAsync((delta, error) -> {
+            if (error != null) {
+                cache.remove(key, task);
+            }
+        }, ThreadPool.EROSION);
+
+        return task;
+    }
+
+    protected LossyCache<CompletableFuture<float[]>> createCache(int viewDistance) {
+        return LossyCache.concurrent(getCacheSize(viewDistance), CACHE_WAYS, TILE_TASK_ALLOCATOR, task -> {}, cacheStats);
+    }
+
+    /**
+     * Tiles are only eroded once while they stay cached, so the cache is sized to hold every tile
+     * within view distance (plus the ring of neighbours blended at its edge) along with the tiles
+     * each worker may be blending (up to 2x2 per chunk), twice over to leave room for more players.
+     */
+    protected int getCacheSize(int viewDistance) {
+        int tilesAcross = (2 * viewDistance + tileChunks) / tileChunks + 2;
+        int workers = ThreadPool.TERRAIN_THREADS + ThreadPool.EROSION_THREADS;
+        int inFlight = workers * 4;
+
+        return Math.max(MIN_CACHE_SIZE, 2 * (tilesAcross * tilesAcross + inFlight));
+    }
+
+    public interface ChunkSource {
+        CompletableFuture<float[]> getChunk(int chunkX, int chunkZ);
+    }
+
+    protected static class TileResource {
+        protected final FastRandom random = new FastRandom();
+        protected final ErosionFilter.Resource erosion = new ErosionFilter.Resource();
+    }
+}
@@ -30,8 +30,6 @@ import com.terraforged.mod.worldgen.noise.NoiseData;
 import com.terraforged.mod.worldgen.noise.NoiseSample;
 import com.terraforged.mod.worldgen.noise.RiverCache;
 
-import java.util.concurrent.CompletableFuture;
-
 public class NoiseResource {
     public final FastRandom random = new FastRandom();
 
@@ -43,8 +41,6 @@ public class NoiseResource {
     public final NoiseSample sharedSample;
     public final ObjectMap<NoiseSample> chunkSample;
 
-    public final CompletableFuture<float[]>[] chunkCache;
-
     public NoiseResource() {
         this(NoiseTileSize.DEFAULT);
     }
@@ -54,8 +50,6 @@ public class NoiseResource {
         this.sharedSample = new NoiseSample();
         this.chunkSample = new ObjectMap<>(1, NoiseSample[]::new);
         this.chunkSample.fill(NoiseSample::new);
-        //noinspection unchecked
-        this.chunkCache = new CompletableFuture[tileSize.chunkSize];
     }
 
     public NoiseSample getSample(int dx, int dz) {
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.noise.erosion;
+
+import com.terraforged.engine.util.FastRandom;
+
+import java.util.Arrays;
+
+/**
+ * A cheap approximation of erosion that repeatedly moves material from each cell to its lower
+ * neighbours wherever the slope exceeds the talus threshold, softening steep slopes and ridges.
+ * <p>
+ * Each pass computes every cell's change from the heights of the previous pass before applying
+ * them, so the result does not depend on iteration order and is fully deterministic.
+ */
+public class ThermalErosionFilter implements IErosionFilter {
+    private static final int ITERATIONS = 6;
+    // Height difference (in noise units) between neighbours above which material slides, ~1 block
+    private static final float TALUS = 0.004F;
+    // Fraction of the excess moved per pass. Must be below 0.5 to avoid oscillation
+    private static final float RATE = 0.25F;
+
+    @Override
+    public void apply(float[] map, int chunkX, int chunkZ, NoiseTileSize size, ErosionFilter.Resource resource, FastRandom random) {
+        int length = size.regionLength;
+        float[] delta = resource.getDeltaBuffer(map.length);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            Arrays.fill(delta, 0, map.length, 0F);
+
+            for (int z = 1; z < length - 1; z++) {
+                for (int x = 1; x < length - 1; x++) {
+                    int index = z * length + x;
+                    float height = map[index];
+
+                    float d0 = height - map[index - 1];
+                    float d1 = height - map[index + 1];
+                    float d2 = height - map[index - length];
+                    float d3 = height - map[index + length];
+
+                    float max = Math.max(Math.max(d0, d1), Math.max(d2, d3));
+                    if (max <= TALUS) continue;
+
+                    // Distribute the excess over the lower neighbours in proportion to their drop
+                    float sum = Math.max(d0, 0F) + Math.max(d1, 0F) + Math.max(d2, 0F) + Math.max(d3, 0F);
+                    float amount = (max - TALUS) * RATE;
+                    float scale = amount / sum;
+
+                    delta[index] -= amount;
+                    if (d0 > 0) delta[index - 1] += d0 * scale;
+                    if (d1 > 0) delta[index + 1] += d1 * scale;
+                    if (d2 > 0) delta[index - length] += d2 * scale;
+                    if (d3 > 0) delta[index + length] += d3 * scale;
+                }
+            }
+
+            for (int j = 0; j < map.length; j++) {
+                map[j] += delta[j];
+            }
+        }
+    }
+}
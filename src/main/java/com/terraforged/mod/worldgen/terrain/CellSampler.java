@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.terrain;
+
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.TerraForged;
+
+/**
+ * Finds the nearest & second nearest region cells for a row of (warped) region coordinates,
+ * writing the per-point results into the Blender's row buffers.
+ * <p>
+ * A vectorized implementation is used when the jdk.incubator.vector module is present (ie the JVM
+ * was started with --add-modules jdk.incubator.vector), otherwise the scalar implementation is used.
+ * Only this cell search is vectorized, the terrain noise itself (simplex octaves etc) is scalar.
+ * <p>
+ * The vector implementation lives in the separate 'vector' source set and is only referenced by name.
+ */
+public interface CellSampler {
+    CellSampler INSTANCE = create();
+
+    void sample(int seed, float jitter, float[] x, float[] z, int count, TerrainBlender.Blender blender);
+
+    String getName();
+
+    static CellSampler scalar() {
+        return ScalarCellSampler.INSTANCE;
+    }
+
+    static CellSampler create() {
+        if (Environment.hasFlag("scalar_noise") || !isVectorAvailable()) {
+            return scalar();
+        }
+
+        try {
+            // Loaded reflectively so that the vector classes are never resolved when the module is absent
+            var type = Class.forName("com.terraforged.mod.worldgen.terrain.VectorCellSampler");
+            var sampler = (CellSampler) type.getConstructor().newInstance();
+            TerraForged.LOG.info("Using {} cell sampler", sampler.getName());
+            return sampler;
+        } catch (Throwable t) {
+            TerraForged.LOG.warn("Failed to initialise vector cell sampler, falling back to scalar", t);
+            return scalar();
+        }
+    }
+
+    static boolean isVectorAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
@@ -28,15 +28,19 @@ import com.terraforged.engine.util.pos.PosUtil;
 import com.terraforged.engine.world.terrain.Terrain;
 import com.terraforged.mod.util.MathUtil;
 import com.terraforged.mod.util.SpiralIterator;
-import com.terraforged.mod.util.map.Object2FloatCache;
+import com.terraforged.mod.util.map.IndexedFloatCache;
 import com.terraforged.mod.util.map.WeightMap;
 import com.terraforged.mod.util.seed.Seedable;
 import com.terraforged.mod.worldgen.asset.TerrainNoise;
+import com.terraforged.mod.worldgen.noise.NoiseRow;
+import com.terraforged.mod.worldgen.noise.WarpCache;
 import com.terraforged.noise.Module;
 import com.terraforged.noise.Source;
 import com.terraforged.noise.domain.Domain;
 import com.terraforged.noise.util.NoiseUtil;
 
+import java.util.Arrays;
+
 public class TerrainBlender implements Module, Seedable<TerrainBlender> {
     private static final int REGION_SEED_OFFSET = 21491124;
     private static final int WARP_SEED_OFFSET = 12678;
@@ -48,6 +52,7 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
     private final float blending;
 
     private final Domain warp;
+    private final WarpCache warpCache;
     private final WeightMap<TerrainNoise> terrains;
     private final ThreadLocal<Blender> localBlender = ThreadLocal.withInitial(Blender::new);
 
@@ -59,15 +64,12 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
         this.blending = blending;
         this.terrains = WeightMap.of(terrains);
         this.warp = Domain.warp(Source.SIMPLEX, (int) seed + WARP_SEED_OFFSET, scale, 3,scale / 2.5F);
+        this.warpCache = new WarpCache(warp, frequency);
     }
 
     @Override
     public TerrainBlender withSeed(long seed) {
-        var input = terrains.getValues();
-        var output = new TerrainNoise[input.length];
-        for (int i = 0; i < output.length; i++) {
-            output[i] = input[i].withSeed(seed);
-        }
+        var output = TerrainNoise.withSeed(seed, terrains.getValues());
         return new TerrainBlender(seed, scale, jitter, blending, output);
     }
 
@@ -78,12 +80,95 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
     }
 
     public float getValue(float x, float z, Blender blender) {
-        float rx = warp.getX(x, z) * frequency;
-        float rz = warp.getY(x, z) * frequency;
+        var warped = warpCache.get(x, z);
+        float rx = PosUtil.unpackLeftf(warped);
+        float rz = PosUtil.unpackRightf(warped);
         getCell(regionSeed, rx, rz, jitter, blender);
         return blender.getValue(x, z, blending, terrains);
     }
 
+    /**
+     * Row variant of getValue. Evaluates the blended land noise at each of the given point indices
+     * of the row, writing the noise value and terrain type to the same indices of the outputs.
+     * <p>
+     * Points that lie in the unblended centre of a region only need their region's terrain noise,
+     * so those are deferred and evaluated together in a final pass over the row.
+     */
+    public void getValues(NoiseRow row, int[] indices, int count, float[] output, Terrain[] terrainOutput, Blender blender) {
+        blender.ensureCapacity(row.length());
+
+        float z = row.getZ();
+        float[] warpX = blender.warpX;
+        float[] warpZ = blender.warpZ;
+
+        var coarse = row.getCoarse();
+        if (coarse != null && coarse.hasWarp()) {
+            var coarseX = coarse.getWarpX();
+            var coarseZ = coarse.getWarpZ();
+            for (int i = 0; i < count; i++) {
+                int blockX = row.getBlockX() + indices[i];
+                warpX[i] = coarseX.get(blockX, row.getBlockZ());
+                warpZ[i] = coarseZ.get(blockX, row.getBlockZ());
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                int index = indices[i];
+                float x = row.getX(index);
+                var warped = warpCache.get(x, z);
+                warpX[i] = PosUtil.unpackLeftf(warped);
+                warpZ[i] = PosUtil.unpackRightf(warped);
+            }
+        }
+
+        // The vector sampler searches the whole row up front, the scalar search runs per point so
+        // that its result can be used directly without going through the row buffers
+        var sampler = CellSampler.INSTANCE;
+        boolean vectorized = sampler != CellSampler.scalar();
+        if (vectorized) {
+            sampler.sample(regionSeed, jitter, warpX, warpZ, count, blender);
+        }
+
+        var deferred = row.terrainNoise();
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            if (vectorized) {
+                blender.load(i);
+            } else {
+                getCell(regionSeed, warpX[i], warpZ[i], jitter, blender);
+            }
+            terrainOutput[index] = getTerrain(blender);
+
+            if (blender.isCentre(blending)) {
+                deferred[index] = terrains.getValue(blender.getCentreNoiseIndex());
+            } else {
+                deferred[index] = null;
+                output[index] = blender.getValue(row.getX(index), z, blending, terrains);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            var terrain = deferred[index];
+            if (terrain != null) {
+                output[index] = terrain.sampler().getValue(row.getX(index), z);
+            }
+        }
+    }
+
+    /**
+     * The warped region-space x coordinate of the given position.
+     */
+    public float getRegionX(float x, float z) {
+        return PosUtil.unpackLeftf(warpCache.get(x, z));
+    }
+
+    /**
+     * The warped region-space z coordinate of the given position.
+     */
+    public float getRegionZ(float x, float z) {
+        return PosUtil.unpackRightf(warpCache.get(x, z));
+    }
+
     public Blender getBlenderResource() {
         return localBlender.get();
     }
@@ -110,8 +195,9 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
     }
 
     public SpiralIterator iterator(float x, float z, int min, int max) {
-        float rx = warp.getX(x, z) * frequency;
-        float rz = warp.getY(x, z) * frequency;
+        var warped = warpCache.get(x, z);
+        float rx = PosUtil.unpackLeftf(warped);
+        float rz = PosUtil.unpackRightf(warped);
 
         int cx = NoiseUtil.floor(rx);
         int cz = NoiseUtil.floor(rz);
@@ -141,10 +227,12 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
         return 0L;
     }
 
-    private static void getCell(int seed, float x, float z, float jitter, Blender blender) {
+    static void getCell(int seed, float x, float z, float jitter, Blender blender) {
         int maxX = NoiseUtil.floor(x) + 1;
         int maxZ = NoiseUtil.floor(z) + 1;
 
+        blender.prepareCells(seed, jitter, maxX, maxZ);
+
         blender.closestIndex = 0;
         blender.closestIndex2 = 0;
 
@@ -154,29 +242,20 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
         float nearestDistance = Float.MAX_VALUE;
         float nearestDistance2 = Float.MAX_VALUE;
 
-        for (int cz = maxZ - 2, i = 0; cz <= maxZ; cz++) {
-            for (int cx = maxX - 2; cx <= maxX; cx++, i++) {
-                int hash = NoiseUtil.hash2D(seed, cx, cz);
+        for (int i = 0; i < 9; i++) {
+            float dist2 = NoiseUtil.dist2(x, z, blender.cellX[i], blender.cellZ[i]);
 
-                float dx = MathUtil.rand(hash, NoiseUtil.X_PRIME);
-                float dz = MathUtil.rand(hash, NoiseUtil.Y_PRIME);
+            blender.hashes[i] = blender.cellHashes[i];
+            blender.distances[i] = dist2;
 
-                float px = cx + dx * jitter;
-                float pz = cz + dz * jitter;
-                float dist2 = NoiseUtil.dist2(x, z, px, pz);
-
-                blender.hashes[i] = hash;
-                blender.distances[i] = dist2;
-
-                if (dist2 < nearestDistance) {
-                    nearestDistance2 = nearestDistance;
-                    nearestDistance = dist2;
-                    nearestIndex2 = nearestIndex;
-                    nearestIndex = i;
-                } else if (dist2 < nearestDistance2) {
-                    nearestDistance2 = dist2;
-                    nearestIndex2 =  i;
-                }
+            if (dist2 < nearestDistance) {
+                nearestDistance2 = nearestDistance;
+                nearestDistance = dist2;
+                nearestIndex2 = nearestIndex;
+                nearestIndex = i;
+            } else if (dist2 < nearestDistance2) {
+                nearestDistance2 = dist2;
+                nearestIndex2 =  i;
             }
         }
 
@@ -190,7 +269,94 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
 
         protected final int[] hashes = new int[9];
         protected final float[] distances = new float[9];
-        protected final Object2FloatCache<TerrainNoise> cache = new Object2FloatCache<>(9);
+        protected final IndexedFloatCache cache = new IndexedFloatCache(9);
+
+        // The hashes and jittered points of the 3x3 cells around the last region cell searched
+        protected int cellSeed;
+        protected float cellJitter;
+        protected int cellMaxX = Integer.MIN_VALUE;
+        protected int cellMaxZ = Integer.MIN_VALUE;
+        protected final int[] cellHashes = new int[9];
+        protected final float[] cellX = new float[9];
+        protected final float[] cellZ = new float[9];
+
+        // The index of the terrain selected by each cell hash, valid while the terrain set is unchanged
+        protected WeightMap<TerrainNoise> cellTerrainSet;
+        protected final int[] cellTerrainHashes = new int[9];
+        protected final int[] cellTerrainIndices = new int[9];
+
+        protected float[] warpX = new float[0];
+        protected float[] warpZ = new float[0];
+
+        protected int[] rowHashes = new int[0];
+        protected float[] rowDistances = new float[0];
+        protected int[] rowClosest = new int[0];
+        protected int[] rowClosest2 = new int[0];
+
+        public void ensureCapacity(int length) {
+            if (warpX.length < length) {
+                warpX = new float[length];
+                warpZ = new float[length];
+                rowHashes = new int[length * 9];
+                rowDistances = new float[length * 9];
+                rowClosest = new int[length];
+                rowClosest2 = new int[length];
+            }
+        }
+
+        /**
+         * Computes the hashes and jittered points of the 3x3 cells ending at (maxX, maxZ), unless they
+         * are already held from the previous search.
+         */
+        protected void prepareCells(int seed, float jitter, int maxX, int maxZ) {
+            if (maxX == cellMaxX && maxZ == cellMaxZ && seed == cellSeed && jitter == cellJitter) return;
+
+            cellSeed = seed;
+            cellJitter = jitter;
+            cellMaxX = maxX;
+            cellMaxZ = maxZ;
+
+            for (int cz = maxZ - 2, i = 0; cz <= maxZ; cz++) {
+                for (int cx = maxX - 2; cx <= maxX; cx++, i++) {
+                    int hash = NoiseUtil.hash2D(seed, cx, cz);
+
+                    float dx = MathUtil.rand(hash, NoiseUtil.X_PRIME);
+                    float dz = MathUtil.rand(hash, NoiseUtil.Y_PRIME);
+
+                    cellHashes[i] = hash;
+                    cellX[i] = cx + dx * jitter;
+                    cellZ[i] = cz + dz * jitter;
+                }
+            }
+        }
+
+        /**
+         * Saves the current cell search result to the given row position.
+         */
+        protected void store(int i) {
+            System.arraycopy(hashes, 0, rowHashes, i * 9, 9);
+            System.arraycopy(distances, 0, rowDistances, i * 9, 9);
+            rowClosest[i] = closestIndex;
+            rowClosest2[i] = closestIndex2;
+        }
+
+        /**
+         * Restores the cell search result saved at the given row position.
+         */
+        public void load(int i) {
+            System.arraycopy(rowHashes, i * 9, hashes, 0, 9);
+            System.arraycopy(rowDistances, i * 9, distances, 0, 9);
+            closestIndex = rowClosest[i];
+            closestIndex2 = rowClosest2[i];
+        }
+
+        public int getClosestIndex() {
+            return closestIndex;
+        }
+
+        public int getClosestIndex2() {
+            return closestIndex2;
+        }
 
         public float getCentreNoiseIndex() {
             return getNoiseIndex(closestIndex);
@@ -201,8 +367,18 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
         }
 
         public float getCentreValue(float x, float z, WeightMap<TerrainNoise> terrains) {
-            float noise = getCentreNoiseIndex();
-            return terrains.getValue(noise).noise().getValue(x, z);
+            int terrain = getCellTerrainIndex(closestIndex, terrains);
+            return terrains.getValueAt(terrain).sampler().getValue(x, z);
+        }
+
+        public boolean isCentre(float blending) {
+            float dist0 = getDistance(closestIndex);
+            float dist1 = getDistance(closestIndex2);
+
+            float borderDistance = (dist0 + dist1) * 0.5F;
+            float blendStart = borderDistance - borderDistance * blending;
+
+            return dist0 <= blendStart;
         }
 
         public float getValue(float x, float z, float blending, WeightMap<TerrainNoise> terrains) {
@@ -246,18 +422,36 @@ public class TerrainBlender implements Module, Seedable<TerrainBlender> {
         }
 
         private float getCacheValue(int index, float x, float z, WeightMap<TerrainNoise> terrains) {
-            float noiseIndex = getNoiseIndex(index);
-            var terrain = terrains.getValue(noiseIndex);
+            int terrain = getCellTerrainIndex(index, terrains);
 
             float value = cache.get(terrain);
             if (Float.isNaN(value)) {
-                value = terrain.noise().getValue(x, z);
+                value = terrains.getValueAt(terrain).sampler().getValue(x, z);
                 cache.put(terrain, value);
             }
 
             return value;
         }
 
+        private int getCellTerrainIndex(int index, WeightMap<TerrainNoise> terrains) {
+            if (terrains != cellTerrainSet) {
+                cellTerrainSet = terrains;
+                cache.ensureCapacity(terrains.size());
+                Arrays.fill(cellTerrainIndices, -1);
+            }
+
+            // The terrain is a pure function of the cell hash so the hash alone identifies the entry
+            int hash = hashes[index];
+            int terrain = cellTerrainIndices[index];
+            if (terrain == -1 || cellTerrainHashes[index] != hash) {
+                terrain = terrains.getIndex(getNoiseIndex(index));
+                cellTerrainIndices[index] = terrain;
+                cellTerrainHashes[index] = hash;
+            }
+
+            return terrain;
+        }
+
         private float getNoiseIndex(int index) {
             return MathUtil.rand(hashes[index]);
         }
@@ -24,36 +24,78 @@
 
 package com.terraforged.mod.worldgen.terrain;
 
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.util.map.CacheStats;
 import com.terraforged.mod.worldgen.noise.INoiseGenerator;
 import com.terraforged.mod.worldgen.noise.NoiseSample;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionQuality;
+import com.terraforged.mod.worldgen.util.PlayerTracker;
 import com.terraforged.mod.worldgen.util.ThreadPool;
+import com.terraforged.mod.worldgen.util.WorkerPool.Urgency;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
 public class TerrainCache {
+    public static final int CAPACITY = getCapacity(
+            Environment.getInt("terrain_cache_size", 4096),
+            Environment.getInt("terrain_cache_mb", 0)
+    );
+
+    private final int capacity;
+    private final int batchSize;
     private final TerrainGenerator generator;
-    private final Map<ChunkPos, CompletableFuture<TerrainData>> cache = new ConcurrentHashMap<>();
+    private final PlayerTracker tracker;
+    private final CacheStats stats = new CacheStats("Terrain Cache:");
+    private final Long2ObjectLinkedOpenHashMap<CompletableFuture<TerrainData>> cache;
 
     public TerrainCache(TerrainLevels levels, INoiseGenerator noiseGenerator) {
+        this(CAPACITY, levels, noiseGenerator);
+    }
+
+    public TerrainCache(int capacity, TerrainLevels levels, INoiseGenerator noiseGenerator) {
+        this.capacity = Math.max(1, capacity);
         this.generator = new TerrainGenerator(levels, noiseGenerator);
+        this.tracker = noiseGenerator.getPlayerTracker();
+        this.batchSize = generator.getBatchSize();
+        this.cache = new Long2ObjectLinkedOpenHashMap<>(this.capacity);
     }
 
-    public void drop(ChunkPos pos) {
-        var task = cache.remove(pos);
-        if (task == null || task.isDone()) return;
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public void open(Path dir, long fingerprint) {
+        if (!TerrainStore.ENABLED) return;
+
+        generator.setStore(new TerrainStore(dir, fingerprint));
+    }
 
-        generator.restore(task.join());
+    public void close() {
+        generator.setStore(null);
+    }
+
+    public void drop(ChunkPos pos) {
+        synchronized (cache) {
+            cache.remove(pos.toLong());
+        }
     }
 
     public void hint(ChunkPos pos) {
-        getAsync(pos);
+        getAsync(pos, Urgency.SPECULATIVE);
     }
 
     public int getHeight(int x, int z) {
@@ -70,14 +112,65 @@ public class TerrainCache {
 
     @Nullable
     public TerrainData getIfReady(ChunkPos pos) {
-        var task = cache.get(pos);
+        CompletableFuture<TerrainData> task;
+        synchronized (cache) {
+            task = cache.get(pos.toLong());
+        }
+
         if (task == null || !task.isDone()) return null;
 
         return task.join();
     }
 
     public CompletableFuture<TerrainData> getAsync(ChunkPos pos) {
-        return cache.computeIfAbsent(pos, this::generate);
+        return getAsync(pos, Urgency.REQUIRED);
+    }
+
+    public CompletableFuture<TerrainData> getAsync(ChunkPos pos, Urgency urgency) {
+        long key = pos.toLong();
+        CompletableFuture<TerrainData> task;
+
+        synchronized (cache) {
+            task = cache.getAndMoveToLast(key);
+
+            if (task != null) {
+                stats.hit();
+            } else {
+                stats.miss();
+                if (batchSize > 1) {
+                    task = generateBatch(pos, urgency);
+                } else {
+                    task = generate(pos, urgency);
+                    cache.putAndMoveToLast(key, task);
+                    removeOnFailure(key, task);
+                }
+
+                // Evict the least recently used entries once over budget. Evicted data is left to
+                // the GC rather than pooled as callers may still hold a reference to it
+                while (cache.size() > capacity) {
+                    cache.removeFirst();
+                    stats.evict();
+                }
+            }
+        }
+
+        // A chunk hinted at earlier may still be queued behind more urgent work
+        if (urgency == Urgency.REQUIRED && !task.isDone()) {
+            ThreadPool.TERRAIN.promote(pos.x, pos.z, tracker);
+        }
+
+        return task;
+    }
+
+    /**
+     * Generates the chunk's terrain at the given erosion quality. Lower quality tiers are one-off
+     * queries (eg approximate heights) so they bypass the cache rather than displacing real chunks.
+     */
+    public CompletableFuture<TerrainData> getAsync(ChunkPos pos, ErosionQuality quality) {
+        if (quality == ErosionQuality.DEFAULT) return getAsync(pos);
+
+        var executor = ThreadPool.TERRAIN.at(pos.x, pos.z, Urgency.REQUIRED, tracker);
+        return generator.generateAsync(pos.x, pos.z, quality, executor);
     }
 
     public <T> CompletableFuture<ChunkAccess> combineAsync(Executor executor,
@@ -87,7 +180,77 @@ public class TerrainCache {
         return getAsync(chunk.getPos()).thenApplyAsync(terrainData -> function.apply(chunk, terrainData), executor);
     }
 
-    protected CompletableFuture<TerrainData> generate(ChunkPos pos) {
-        return CompletableFuture.supplyAsync(() -> generator.generate(pos.x, pos.z), ThreadPool.EXECUTOR);
+    public void addDebugInfo(List<String> lines) {
+        stats.addDebugInfo(size(), capacity, lines);
+    }
+
+    protected CompletableFuture<TerrainData> generate(ChunkPos pos, Urgency urgency) {
+        var executor = ThreadPool.TERRAIN.at(pos.x, pos.z, urgency, tracker);
+        return generator.generateAsync(pos.x, pos.z, executor);
+    }
+
+    /**
+     * Generates the aligned block of chunks containing pos in a single task so that the
+     * samples shared along their borders are only computed once. Chunks in the block that
+     * are already cached are skipped. Must be called while holding the cache lock.
+     */
+    @SuppressWarnings("unchecked")
+    protected CompletableFuture<TerrainData> generateBatch(ChunkPos pos, Urgency urgency) {
+        int size = batchSize;
+        int originX = Math.floorDiv(pos.x, size) * size;
+        int originZ = Math.floorDiv(pos.z, size) * size;
+        var tasks = (CompletableFuture<TerrainData>[]) new CompletableFuture[size * size];
+
+        for (int dz = 0, i = 0; dz < size; dz++) {
+            for (int dx = 0; dx < size; dx++, i++) {
+                long key = ChunkPos.asLong(originX + dx, originZ + dz);
+                if (cache.containsKey(key)) continue;
+
+                tasks[i] = new CompletableFuture<>();
+                cache.putAndMoveToLast(key, tasks[i]);
+                removeOnFailure(key, tasks[i]);
+            }
+        }
+
+        // Registered under every chunk of the block so that requests for any of them can promote it
+        ThreadPool.TERRAIN.at(pos.x, pos.z, originX, originZ, size, urgency, tracker).execute(() -> {
+            try {
+                generator.generate(originX, originZ, size,
+                        (cx, cz) -> tasks[(cz - originZ) * size + (cx - originX)] != null,
+                        (cx, cz, terrainData) -> tasks[(cz - originZ) * size + (cx - originX)].complete(terrainData));
+            } catch (Throwable t) {
+                for (var task : tasks) {
+                    if (task != null) {
+                        task.completeExceptionally(t);
+                    }
+                }
+            }
+        });
+
+        return tasks[(pos.z - originZ) * size + (pos.x - originX)];
+    }
+
+    /**
+     * Drops the task from the cache if it fails so that the chunk is regenerated on the next
+     * request rather than handing the same exception out for as long as it stays cached.
+     */
+    protected void removeOnFailure(long key, CompletableFuture<TerrainData> task) {
+        task.whenComplete((terrainData, error) -> {
+            if (error == null) return;
+
+            synchronized (cache) {
+                if (cache.get(key) == task) {
+                    cache.remove(key);
+                }
+            }
+        });
+    }
+
+    protected static int getCapacity(int entries, int megabytes) {
+        if (megabytes <= 0) return entries;
+
+        long bytes = megabytes * 1024L * 1024L;
+        long budget = bytes / TerrainData.getEstimatedSize();
+        return (int) Math.min(entries, budget);
     }
 }
@@ -25,25 +25,58 @@
 package com.terraforged.mod.worldgen.terrain;
 
 import com.terraforged.engine.world.terrain.Terrain;
-import com.terraforged.mod.util.map.FloatMap;
-import com.terraforged.mod.util.map.ObjectMap;
+import com.terraforged.engine.world.terrain.TerrainType;
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.util.map.*;
 import com.terraforged.mod.worldgen.noise.NoiseData;
 import com.terraforged.noise.util.NoiseUtil;
 
 import java.util.function.Consumer;
 
 public class TerrainData implements Consumer<NoiseData> {
+    public static final boolean COMPACT = Environment.hasFlag("compact_terrain");
+
+    // Approximate retained size: three float[256] maps + one Terrain[256] map + headers
+    public static final int ESTIMATED_SIZE = 4 * (16 + 256 * 4) + 128;
+    // Approximate retained size: one short[256] map + three byte[256] maps + headers
+    public static final int ESTIMATED_COMPACT_SIZE = (16 + 256 * 2) + 3 * (16 + 256) + 4 * 32 + 128;
+
+    protected static final Palette<Terrain> TERRAIN_PALETTE = new Palette<>(PaletteMap.MAX_SIZE, TerrainType.NONE, Terrain[]::new);
+
     protected final TerrainLevels levels;
-    protected final FloatMap height = new FloatMap();
-    protected final FloatMap gradient = new FloatMap();
-    protected final FloatMap water = new FloatMap();
-    protected final ObjectMap<Terrain> terrain = new ObjectMap<>(Terrain[]::new);
+    protected final FloatMap height;
+    protected final FloatMap gradient;
+    protected final FloatMap water;
+    protected final ObjectMap<Terrain> terrain;
 
     protected float min = Float.MAX_VALUE;
     protected float max = Float.MIN_VALUE;
 
     public TerrainData(TerrainLevels levels) {
+        this(levels, COMPACT);
+    }
+
+    public TerrainData(TerrainLevels levels, boolean compact) {
         this.levels = levels;
+
+        if (compact) {
+            // Height is held as 16-bit fixed-point relative to the world's min/max build height,
+            // gradient & water are normalized so fit 8-bits, and terrain becomes a palette index
+            // unless more terrain types are in use than the palette can index
+            this.height = QuantizedFloatMap.fixed16(levels.minY, levels.maxY);
+            this.gradient = QuantizedFloatMap.unit8(0F, 1F);
+            this.water = QuantizedFloatMap.unit8(0F, 1F);
+            this.terrain = TERRAIN_PALETTE.isFull() ? new ObjectMap<>(Terrain[]::new) : new PaletteMap<>(TERRAIN_PALETTE, Terrain[]::new);
+        } else {
+            this.height = new FloatMap();
+            this.gradient = new FloatMap();
+            this.water = new FloatMap();
+            this.terrain = new ObjectMap<>(Terrain[]::new);
+        }
+    }
+
+    public static int getEstimatedSize() {
+        return COMPACT ? ESTIMATED_COMPACT_SIZE : ESTIMATED_SIZE;
     }
 
     public int getMin() {
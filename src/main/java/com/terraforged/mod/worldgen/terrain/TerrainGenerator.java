@@ -26,11 +26,17 @@ package com.terraforged.mod.worldgen.terrain;
 
 import com.terraforged.mod.util.ObjectPool;
 import com.terraforged.mod.worldgen.noise.INoiseGenerator;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionQuality;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class TerrainGenerator {
     protected final TerrainLevels levels;
     protected final INoiseGenerator noiseGenerator;
     protected final ObjectPool<TerrainData> terrainDataPool;
+    protected volatile TerrainStore store;
 
     public TerrainGenerator(TerrainLevels levels, INoiseGenerator noiseGenerator) {
         this.levels = levels;
@@ -42,19 +48,147 @@ public class TerrainGenerator {
         return noiseGenerator;
     }
 
+    public void setStore(@Nullable TerrainStore store) {
+        var previous = this.store;
+        this.store = store;
+
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
     public void restore(TerrainData terrainData) {
         terrainDataPool.restore(terrainData);
     }
 
     public TerrainData generate(int chunkX, int chunkZ) {
+        var store = getStore(ErosionQuality.DEFAULT);
         var terrainData = terrainDataPool.take();
+
+        if (store != null && store.read(chunkX, chunkZ, terrainData)) {
+            return terrainData;
+        }
+
         noiseGenerator.generate(chunkX, chunkZ, terrainData);
+
+        if (store != null) {
+            store.write(chunkX, chunkZ, terrainData);
+        }
+
         return terrainData;
     }
 
+    public CompletableFuture<TerrainData> generateAsync(int chunkX, int chunkZ, Executor executor) {
+        return generateAsync(chunkX, chunkZ, ErosionQuality.DEFAULT, executor);
+    }
+
+    /**
+     * Generates the chunk's terrain at the given erosion quality, eg for height queries that can
+     * trade fidelity for speed. Only FULL quality results are read from or written to the terrain
+     * store so that lower tiers cannot stand in for the world's real terrain.
+     */
+    public CompletableFuture<TerrainData> generateAsync(int chunkX, int chunkZ, ErosionQuality quality, Executor executor) {
+        var store = getStore(quality);
+        if (store == null) {
+            return generateNoiseAsync(chunkX, chunkZ, quality, null, executor);
+        }
+
+        return CompletableFuture.supplyAsync(() -> read(chunkX, chunkZ, store), executor).thenCompose(terrainData -> {
+            if (terrainData != null) return CompletableFuture.completedFuture(terrainData);
+
+            return generateNoiseAsync(chunkX, chunkZ, quality, store, executor);
+        });
+    }
+
+    protected CompletableFuture<TerrainData> generateNoiseAsync(int chunkX, int chunkZ, ErosionQuality quality, @Nullable TerrainStore store, Executor executor) {
+        return noiseGenerator.generateAsync(chunkX, chunkZ, quality, noiseData -> {
+            var terrainData = terrainDataPool.take();
+            terrainData.accept(noiseData);
+
+            if (store != null) {
+                store.write(chunkX, chunkZ, terrainData);
+            }
+
+            return terrainData;
+        }, executor);
+    }
+
+    @Nullable
+    protected TerrainStore getStore(ErosionQuality quality) {
+        return quality == ErosionQuality.FULL ? store : null;
+    }
+
+    @Nullable
+    protected TerrainData read(int chunkX, int chunkZ, TerrainStore store) {
+        var terrainData = terrainDataPool.take();
+        if (store.read(chunkX, chunkZ, terrainData)) {
+            return terrainData;
+        }
+
+        terrainDataPool.restore(terrainData);
+        return null;
+    }
+
+    public int getBatchSize() {
+        return noiseGenerator.getBatchSize();
+    }
+
+    /**
+     * Generates the size x size block of chunks starting at chunkX, chunkZ. Only chunks that
+     * the filter accepts are passed to the consumer, the rest are discarded.
+     */
+    public void generate(int chunkX, int chunkZ, int size, ChunkFilter filter, ChunkConsumer consumer) {
+        var store = getStore(ErosionQuality.DEFAULT);
+        var pending = new boolean[size * size];
+
+        int remaining = 0;
+        for (int dz = 0, i = 0; dz < size; dz++) {
+            for (int dx = 0; dx < size; dx++, i++) {
+                int cx = chunkX + dx;
+                int cz = chunkZ + dz;
+                if (!filter.test(cx, cz)) continue;
+
+                if (store != null) {
+                    var terrainData = terrainDataPool.take();
+                    if (store.read(cx, cz, terrainData)) {
+                        consumer.accept(cx, cz, terrainData);
+                        continue;
+                    }
+                    terrainDataPool.restore(terrainData);
+                }
+
+                pending[i] = true;
+                remaining++;
+            }
+        }
+
+        if (remaining == 0) return;
+
+        noiseGenerator.generate(chunkX, chunkZ, size, (cx, cz, noiseData) -> {
+            if (!pending[(cz - chunkZ) * size + (cx - chunkX)]) return;
+
+            var terrainData = terrainDataPool.take();
+            terrainData.accept(noiseData);
+
+            if (store != null) {
+                store.write(cx, cz, terrainData);
+            }
+
+            consumer.accept(cx, cz, terrainData);
+        });
+    }
+
     public int getHeight(int x, int z) {
         float heightNoise = noiseGenerator.getHeightNoise(x, z);
         float scaledHeight = levels.getScaledHeight(heightNoise);
         return levels.getHeight(scaledHeight);
     }
+
+    public interface ChunkFilter {
+        boolean test(int chunkX, int chunkZ);
+    }
+
+    public interface ChunkConsumer {
+        void accept(int chunkX, int chunkZ, TerrainData terrainData);
+    }
 }
@@ -0,0 +1,381 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.terrain;
+
+import com.terraforged.engine.world.terrain.Terrain;
+import com.terraforged.engine.world.terrain.TerrainType;
+import com.terraforged.mod.Environment;
+import com.terraforged.mod.TerraForged;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists generated TerrainData to fixed-size, memory-mapped region files so that chunks
+ * that are reloaded (or regenerated) below the FEATURES stage don't have to recompute their
+ * noise & erosion.
+ * <p>
+ * Each region file covers 32x32 chunks and is laid out as a fixed header (magic, version,
+ * generator fingerprint & terrain-name palette) followed by one fixed-size slot per chunk.
+ * Slots hold a 'present' marker followed by the height, gradient & water floats and a
+ * terrain palette index for each of the chunk's 256 columns.
+ * <p>
+ * Regions are reference counted while being read or written. Once MAX_OPEN_REGIONS is reached
+ * the least recently used idle region is closed, so a file is never mapped by two Regions at
+ * once, and nothing is reopened after the store has been closed.
+ */
+public class TerrainStore {
+    public static final boolean ENABLED = Environment.hasFlag("terrain_store");
+
+    private static final int MAGIC = 0x54465444; // TFTD
+    private static final int VERSION = 1;
+    private static final int MAX_OPEN_REGIONS = 64;
+
+    private static final int REGION_BITS = 5;
+    private static final int REGION_MASK = (1 << REGION_BITS) - 1;
+    private static final int REGION_CHUNKS = 1 << (REGION_BITS * 2);
+
+    private static final int COLUMNS = 16 * 16;
+    private static final int HEADER_SIZE = 4096;
+    private static final int PALETTE_START = 20;
+    private static final int MAX_PALETTE_SIZE = 255;
+
+    private static final int HEIGHT_OFFSET = 1;
+    private static final int GRADIENT_OFFSET = HEIGHT_OFFSET + COLUMNS * 4;
+    private static final int WATER_OFFSET = GRADIENT_OFFSET + COLUMNS * 4;
+    private static final int TERRAIN_OFFSET = WATER_OFFSET + COLUMNS * 4;
+    private static final int SLOT_SIZE = TERRAIN_OFFSET + COLUMNS;
+    private static final long FILE_SIZE = HEADER_SIZE + (long) REGION_CHUNKS * SLOT_SIZE;
+
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+
+    private final Path dir;
+    private final long fingerprint;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Region> regions = new ConcurrentHashMap<>();
+    private boolean closed = false;
+
+    public TerrainStore(Path dir, long fingerprint) {
+        this.dir = dir;
+        this.fingerprint = fingerprint;
+    }
+
+    public boolean read(int chunkX, int chunkZ, TerrainData data) {
+        var region = acquire(chunkX, chunkZ);
+        if (region == null) return false;
+
+        try {
+            return region.read(getSlotOffset(chunkX, chunkZ), data);
+        } finally {
+            region.release();
+        }
+    }
+
+    public void write(int chunkX, int chunkZ, TerrainData data) {
+        var region = acquire(chunkX, chunkZ);
+        if (region == null) return;
+
+        try {
+            region.write(getSlotOffset(chunkX, chunkZ), data);
+        } finally {
+            region.release();
+        }
+    }
+
+    public void close() {
+        synchronized (regions) {
+            closed = true;
+
+            // Regions still in use are closed by whichever thread releases them last
+            for (var region : regions.values()) {
+                region.retire();
+            }
+            regions.clear();
+        }
+    }
+
+    @Nullable
+    private Region acquire(int chunkX, int chunkZ) {
+        int regionX = chunkX >> REGION_BITS;
+        int regionZ = chunkZ >> REGION_BITS;
+        long key = (regionX & 0xFFFFFFFFL) | (regionZ & 0xFFFFFFFFL) << 32;
+
+        var region = regions.get(key);
+        if (region != null && region.acquire(clock.incrementAndGet())) return region;
+
+        synchronized (regions) {
+            if (closed) return null;
+
+            // Regions are only closed & removed while holding the lock so this one is usable
+            region = regions.get(key);
+            if (region != null && region.acquire(clock.incrementAndGet())) return region;
+
+            if (regions.size() >= MAX_OPEN_REGIONS) {
+                evict();
+            }
+
+            region = open(regionX, regionZ);
+            if (region != null) {
+                region.acquire(clock.incrementAndGet());
+                regions.put(key, region);
+            }
+
+            return region;
+        }
+    }
+
+    // Must be called while holding the regions lock
+    private void evict() {
+        long oldestKey = 0L;
+        Region oldest = null;
+
+        for (var entry : regions.entrySet()) {
+            var region = entry.getValue();
+            if (region.isIdle() && (oldest == null || region.lastUsed < oldest.lastUsed)) {
+                oldestKey = entry.getKey();
+                oldest = region;
+            }
+        }
+
+        // If every region is in use the limit is temporarily exceeded rather than closing one
+        // that another thread is reading from or writing to
+        if (oldest != null && oldest.tryClose()) {
+            regions.remove(oldestKey);
+        }
+    }
+
+    @Nullable
+    private Region open(int regionX, int regionZ) {
+        var file = dir.resolve("r." + regionX + "." + regionZ + ".tfd");
+
+        try {
+            Files.createDirectories(dir);
+
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            var region = new Region(channel, buffer);
+
+            if (!region.validate(fingerprint)) {
+                region.reset(fingerprint);
+            }
+
+            return region;
+        } catch (IOException e) {
+            TerraForged.LOG.error("Failed to open terrain region file: {}", file, e);
+            return null;
+        }
+    }
+
+    private static int getSlotOffset(int chunkX, int chunkZ) {
+        int index = ((chunkZ & REGION_MASK) << REGION_BITS) | (chunkX & REGION_MASK);
+        return HEADER_SIZE + index * SLOT_SIZE;
+    }
+
+    private static class Region {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger refs = new AtomicInteger(); // -1 once closed
+        private volatile boolean retired = false;
+        private volatile long lastUsed;
+        private final List<Terrain> palette = new ArrayList<>();
+        private final Map<Terrain, Integer> paletteIndex = new ConcurrentHashMap<>();
+        private volatile Terrain[] paletteLookup = new Terrain[0];
+        private int paletteEnd = PALETTE_START;
+
+        private Region(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private boolean acquire(long time) {
+            int count;
+            do {
+                count = refs.get();
+                if (count < 0) return false;
+            } while (!refs.compareAndSet(count, count + 1));
+
+            lastUsed = time;
+            return true;
+        }
+
+        private void release() {
+            if (refs.decrementAndGet() == 0 && retired) {
+                tryClose();
+            }
+        }
+
+        private boolean isIdle() {
+            return refs.get() == 0;
+        }
+
+        private void retire() {
+            retired = true;
+            tryClose();
+        }
+
+        private boolean tryClose() {
+            if (!refs.compareAndSet(0, -1)) return false;
+
+            close();
+            return true;
+        }
+
+        private boolean validate(long fingerprint) {
+            if (buffer.getInt(0) != MAGIC) return false;
+            if (buffer.getInt(4) != VERSION) return false;
+            if (buffer.getLong(8) != fingerprint) return false;
+
+            int size = buffer.getInt(16);
+            int position = PALETTE_START;
+            for (int i = 0; i < size; i++) {
+                int length = buffer.getShort(position) & 0xFFFF;
+                var bytes = new byte[length];
+                buffer.get(position + 2, bytes);
+                position += 2 + length;
+
+                var terrain = TerrainType.get(new String(bytes, StandardCharsets.UTF_8));
+                addPaletteEntry(terrain == null ? TerrainType.NONE : terrain);
+            }
+
+            paletteEnd = position;
+
+            return true;
+        }
+
+        private void reset(long fingerprint) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, fingerprint);
+            buffer.putInt(16, 0);
+
+            for (int i = 0; i < REGION_CHUNKS; i++) {
+                buffer.put(HEADER_SIZE + i * SLOT_SIZE, EMPTY);
+            }
+
+            palette.clear();
+            paletteIndex.clear();
+            paletteLookup = new Terrain[0];
+            paletteEnd = PALETTE_START;
+        }
+
+        private boolean read(int offset, TerrainData data) {
+            if (buffer.get(offset) != PRESENT) return false;
+
+            var lookup = paletteLookup;
+            float min = Float.MAX_VALUE;
+            float max = Float.MIN_VALUE;
+
+            for (int i = 0; i < COLUMNS; i++) {
+                float height = buffer.getFloat(offset + HEIGHT_OFFSET + i * 4);
+                int terrainIndex = buffer.get(offset + TERRAIN_OFFSET + i) & 0xFF;
+
+                data.height.set(i, height);
+                data.gradient.set(i, buffer.getFloat(offset + GRADIENT_OFFSET + i * 4));
+                data.water.set(i, buffer.getFloat(offset + WATER_OFFSET + i * 4));
+                data.terrain.set(i, terrainIndex < lookup.length ? lookup[terrainIndex] : TerrainType.NONE);
+
+                min = Math.min(min, height);
+                max = Math.max(max, height);
+            }
+
+            data.min = min;
+            data.max = max;
+
+            return true;
+        }
+
+        private void write(int offset, TerrainData data) {
+            // Clear the marker first so a partially written slot is never read back
+            buffer.put(offset, EMPTY);
+
+            for (int i = 0; i < COLUMNS; i++) {
+                buffer.putFloat(offset + HEIGHT_OFFSET + i * 4, data.height.get(i));
+                buffer.putFloat(offset + GRADIENT_OFFSET + i * 4, data.gradient.get(i));
+                buffer.putFloat(offset + WATER_OFFSET + i * 4, data.water.get(i));
+
+                int terrainIndex = getPaletteIndex(data.terrain.get(i));
+                if (terrainIndex == -1) return;
+
+                buffer.put(offset + TERRAIN_OFFSET + i, (byte) terrainIndex);
+            }
+
+            buffer.put(offset, PRESENT);
+        }
+
+        private int getPaletteIndex(Terrain terrain) {
+            var index = paletteIndex.get(terrain);
+            if (index != null) return index;
+
+            synchronized (this) {
+                index = paletteIndex.get(terrain);
+                if (index != null) return index;
+
+                if (palette.size() >= MAX_PALETTE_SIZE) return -1;
+
+                var bytes = terrain.getName().getBytes(StandardCharsets.UTF_8);
+                if (paletteEnd + 2 + bytes.length > HEADER_SIZE) return -1;
+
+                buffer.putShort(paletteEnd, (short) bytes.length);
+                buffer.put(paletteEnd + 2, bytes);
+                paletteEnd += 2 + bytes.length;
+
+                int newIndex = addPaletteEntry(terrain);
+                buffer.putInt(16, palette.size());
+
+                return newIndex;
+            }
+        }
+
+        private int addPaletteEntry(Terrain terrain) {
+            int index = palette.size();
+            palette.add(terrain);
+            paletteIndex.put(terrain, index);
+            paletteLookup = palette.toArray(Terrain[]::new);
+            return index;
+        }
+
+        private void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                TerraForged.LOG.error("Failed to close terrain region file", e);
+            }
+        }
+    }
+}
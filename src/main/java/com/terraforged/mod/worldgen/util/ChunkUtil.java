@@ -31,11 +31,9 @@ import com.terraforged.mod.worldgen.terrain.TerrainData;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Holder;
 import net.minecraft.core.QuartPos;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.world.level.StructureFeatureManager;
-import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.biome.BiomeSource;
 import net.minecraft.world.level.biome.Climate;
 import net.minecraft.world.level.block.Block;
@@ -68,14 +66,25 @@ public class ChunkUtil {
             }
         }
 
-        for(int i = heightAccessor.getMinSection(); i < heightAccessor.getMaxSection(); ++i) {
+        // @Optimization Note:
+        // Biomes are 2D so every section holds the same 4x4x4 container. Rather than setting all
+        // 64 entries of every section, we fill the lowest section, serialize its container and
+        // bulk-read that into the remaining sections (same trick as the full stone sections).
+        int minSection = heightAccessor.getMinSection();
+        var first = chunk.getSection(chunk.getSectionIndexFromSectionY(minSection));
+        fillNoiseBiomes(first.getBiomes(), biomeBuffer);
+
+        var biomeData = resource.biomeSection;
+        biomeData.clear();
+        first.getBiomes().write(biomeData);
+
+        for (int i = minSection + 1; i < heightAccessor.getMaxSection(); ++i) {
             var chunkSection = chunk.getSection(chunk.getSectionIndexFromSectionY(i));
-            fillNoiseBiomes(chunkSection, biomeBuffer);
+            copyContainer(biomeData, chunkSection.getBiomes());
         }
     }
 
-    private static void fillNoiseBiomes(LevelChunkSection section, Holder<Biome>[] biomeBuffer) {
-        var biomes = section.getBiomes();
+    public static <T> void fillNoiseBiomes(PalettedContainer<T> biomes, T[] biomeBuffer) {
         biomes.acquire();
         for (int dz = 0; dz < 4; dz++) {
             for (int dx = 0; dx < 4; dx++) {
@@ -88,6 +97,11 @@ public class ChunkUtil {
         biomes.release();
     }
 
+    public static void copyContainer(FriendlyByteBuf data, PalettedContainer<?> container) {
+        data.resetReaderIndex();
+        container.read(data);
+    }
+
     public static void fillChunk(int seaLevel, ChunkAccess chunk, TerrainData terrainData, FillerBlock filler, GeneratorResource resource) {
         int limit = chunk.getMaxBuildHeight();
         int min = Math.min(limit, getLowestSection(terrainData));
@@ -107,11 +121,24 @@ public class ChunkUtil {
             section.recalcBlockCounts();
         }
 
-        // Here we fill the chunk section by the block
+        // Remaining sections are encoded column-wise straight into palette storage and bulk read
+        // in the same way. Sections lying wholly between the highest column and the sea level are
+        // single-value water sections. Anything the compact palette can't represent falls back to
+        // filling the section by the block.
+        int maxSolid = terrainData.getMax();
+        var builder = resource.sectionBuilder;
         for (int sy = min; sy < max; sy += 16) {
             int index = chunk.getSectionIndex(sy);
             var section = chunk.getSection(index);
-            fillSection(sy, seaLevel, terrainData, chunk, section, filler);
+
+            if (sy > maxSolid && sy + 16 <= seaLevel + 1) {
+                builder.buildSingle(filler.getState(sy, maxSolid));
+                builder.writeTo(chunk, sy, section);
+            } else if (builder.build(sy, seaLevel, terrainData, filler)) {
+                builder.writeTo(chunk, sy, section);
+            } else {
+                fillSection(sy, seaLevel, terrainData, chunk, section, filler);
+            }
         }
     }
 
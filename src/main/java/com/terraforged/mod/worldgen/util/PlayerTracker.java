@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.util;
+
+import net.minecraft.server.level.ServerLevel;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the chunk positions of the players in a single level. Each generator owns its own tracker
+ * so that world-gen tasks are prioritised by their distance to players in the same level.
+ */
+public class PlayerTracker {
+    private static final int UPDATE_INTERVAL = 10;
+    private static final long[] NONE = new long[0];
+
+    private int tick;
+    private volatile long[] positions = NONE;
+
+    /**
+     * Called at the start of each tick of the tracker's level. Every few ticks the chunk positions of
+     * the players in the level are recorded and, if any player has moved into a different
+     * chunk, the queued world-gen tasks are re-ordered around the new positions.
+     */
+    public void tick(ServerLevel level) {
+        if (++tick < UPDATE_INTERVAL) return;
+
+        tick = 0;
+
+        var players = level.players();
+        var current = new long[players.size()];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = players.get(i).chunkPosition().toLong();
+        }
+
+        if (!Arrays.equals(current, positions)) {
+            positions = current;
+            ThreadPool.reprioritise();
+        }
+    }
+
+    /**
+     * Returns the chebyshev distance (in chunks) to the nearest tracked player, or zero when
+     * no players are being tracked (ie during pre-generation) so that tasks run in FIFO order.
+     */
+    public int getDistance(int chunkX, int chunkZ) {
+        var positions = this.positions;
+        if (positions.length == 0) return 0;
+
+        int distance = Integer.MAX_VALUE;
+        for (long pos : positions) {
+            int dx = Math.abs(chunkX - (int) pos);
+            int dz = Math.abs(chunkZ - (int) (pos >>> 32));
+            distance = Math.min(distance, Math.max(dx, dz));
+        }
+
+        return distance;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.util;
+
+import com.terraforged.mod.worldgen.terrain.TerrainData;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
+
+import java.util.Arrays;
+
+/**
+ * Builds the block states of a chunk section directly in the serialized PalettedContainer format
+ * so that a section can be filled with a single bulk read rather than 4096 setBlockState calls.
+ * <p>
+ * Sections are encoded with the 4-bit linear palette that vanilla uses for small palettes (air,
+ * stone & water in practice). Sections that turn out to hold a single state are written as a
+ * single-value palette instead. Instances are not thread-safe and should be held per-thread.
+ */
+public class SectionBuilder {
+    private static final int BITS = 4;
+    private static final int MAX_PALETTE_SIZE = 1 << BITS;
+    private static final int VALUES_PER_LONG = 64 / BITS;
+    private static final int SECTION_SIZE = 16 * 16 * 16;
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final long[] storage = new long[SECTION_SIZE / VALUES_PER_LONG];
+    private final BlockState[] palette = new BlockState[MAX_PALETTE_SIZE];
+    private final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.buffer(2 + 5 * (MAX_PALETTE_SIZE + 2) + 8 * SECTION_SIZE / VALUES_PER_LONG));
+
+    private int paletteSize;
+    private int blockCount;
+    private boolean emitters;
+
+    /**
+     * Computes the column-wise fill of the section starting at startY and encodes it.
+     *
+     * @return false if the section needs more palette entries than the compact encoding allows, in
+     * which case the caller should fall back to setting blocks individually.
+     */
+    public boolean build(int startY, int waterY, TerrainData terrainData, ChunkUtil.FillerBlock filler) {
+        reset();
+
+        int sectionMaxY = startY + 16;
+        BlockState lastState = AIR;
+        long lastIndex = 0;
+
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int solidY = terrainData.getHeight(x, z);
+                int firstAirY = Math.max(solidY, waterY) + 1;
+
+                int exclusiveMaxY = Math.min(sectionMaxY, firstAirY);
+                for (int y = startY; y < exclusiveMaxY; y++) {
+                    var state = filler.getState(y, solidY);
+
+                    if (state != lastState) {
+                        int index = indexOf(state);
+                        if (index == -1) return false;
+
+                        lastState = state;
+                        lastIndex = index;
+                    }
+
+                    // Section index order is y, z, x. Air is palette index 0 so only non-air is written
+                    int i = ((y & 15) << 8) | (z << 4) | x;
+                    storage[i / VALUES_PER_LONG] |= lastIndex << ((i % VALUES_PER_LONG) * BITS);
+                    blockCount++;
+                }
+            }
+        }
+
+        if (blockCount == 0) {
+            encodeSingle(AIR);
+        } else if (blockCount == SECTION_SIZE && paletteSize == 2) {
+            encodeSingle(palette[1]);
+        } else {
+            encodeLinear();
+        }
+
+        return true;
+    }
+
+    /**
+     * Encodes a section holding only the given state.
+     */
+    public void buildSingle(BlockState state) {
+        reset();
+        if (state != AIR) {
+            palette[paletteSize++] = state;
+            emitters = state.getLightEmission() != 0;
+        }
+        encodeSingle(state);
+    }
+
+    /**
+     * Reads the encoded section into the chunk section, registering any light sources with the chunk.
+     */
+    public void writeTo(ChunkAccess chunk, int startY, LevelChunkSection section) {
+        buffer.resetReaderIndex();
+        section.getStates().read(buffer);
+        section.recalcBlockCounts();
+
+        // Only scan the section for light sources if the palette actually contains any
+        if (emitters && chunk instanceof ProtoChunk proto) {
+            addLights(proto, startY, section);
+        }
+    }
+
+    private void addLights(ProtoChunk chunk, int startY, LevelChunkSection section) {
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (section.getBlockState(x, y, z).getLightEmission() != 0) {
+                        chunk.addLight(new BlockPos(x, startY + y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        Arrays.fill(storage, 0L);
+        Arrays.fill(palette, null);
+        palette[0] = AIR;
+        paletteSize = 1;
+        blockCount = 0;
+        emitters = false;
+    }
+
+    private int indexOf(BlockState state) {
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == state) return i;
+        }
+
+        if (paletteSize == MAX_PALETTE_SIZE) return -1;
+
+        palette[paletteSize] = state;
+        emitters |= state.getLightEmission() != 0;
+        return paletteSize++;
+    }
+
+    private void encodeSingle(BlockState state) {
+        buffer.clear();
+        buffer.writeByte(0);
+        buffer.writeVarInt(Block.BLOCK_STATE_REGISTRY.getId(state));
+        buffer.writeVarInt(0);
+    }
+
+    private void encodeLinear() {
+        buffer.clear();
+        buffer.writeByte(BITS);
+        buffer.writeVarInt(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            buffer.writeVarInt(Block.BLOCK_STATE_REGISTRY.getId(palette[i]));
+        }
+        buffer.writeLongArray(storage);
+    }
+}
@@ -24,11 +24,43 @@
 
 package com.terraforged.mod.worldgen.util;
 
-import net.minecraft.Util;
+import com.terraforged.mod.Environment;
 
-import java.util.concurrent.Executor;
+import java.util.List;
 
 public class ThreadPool {
-    // TODO: Consider using own service
-    public static final Executor EXECUTOR = Util.backgroundExecutor();
+    // The pools share one budget so that together they don't oversubscribe the CPU. Erosion is the
+    // most expensive stage so gets half, biomes a quarter & terrain the rest. Each pool has at least
+    // one thread so on machines with fewer than four cores the total may exceed the budget slightly
+    public static final int THREADS = Environment.getInt("worldgen_threads", Math.max(1, Environment.CORES - 1));
+    public static final int EROSION_THREADS = Environment.getInt("erosion_threads", Math.max(1, THREADS / 2));
+    public static final int BIOME_THREADS = Environment.getInt("biome_threads", Math.max(1, THREADS / 4));
+    public static final int TERRAIN_THREADS = Environment.getInt("terrain_threads", Math.max(1, THREADS - EROSION_THREADS - BIOME_THREADS));
+
+    // Each task class gets its own queue so that terrain tasks waiting on erosion
+    // tiles cannot starve the pool those tiles are queued on (and vanilla's
+    // background executor is left free for IO and its own world-gen work)
+    public static final WorkerPool TERRAIN = new WorkerPool("Terrain:", TERRAIN_THREADS);
+    public static final WorkerPool EROSION = new WorkerPool("Erosion:", EROSION_THREADS);
+    public static final WorkerPool BIOME = new WorkerPool("Biomes: ", BIOME_THREADS);
+
+    private static final WorkerPool[] POOLS = {TERRAIN, EROSION, BIOME};
+
+    public static void reprioritise() {
+        for (var pool : POOLS) {
+            pool.reprioritise();
+        }
+    }
+
+    public static void resetStats() {
+        for (var pool : POOLS) {
+            pool.resetStats();
+        }
+    }
+
+    public static void addDebugInfo(List<String> lines) {
+        for (var pool : POOLS) {
+            pool.addDebugInfo(lines);
+        }
+    }
 }
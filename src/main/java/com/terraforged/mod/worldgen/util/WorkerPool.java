@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.util;
+
+import com.terraforged.mod.TerraForged;
+import com.terraforged.mod.worldgen.profiler.GenStage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WorkerPool implements Executor {
+    protected final String name;
+    protected final int parallelism;
+    protected final ThreadPoolExecutor executor;
+    protected final GenStage waitTime;
+    protected final GenStage runTime;
+    protected final AtomicLong sequence = new AtomicLong();
+    protected final Map<PendingKey, Task> pending = new ConcurrentHashMap<>();
+    protected final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>(64, WorkerPool::compare);
+
+    public WorkerPool(String name, int parallelism) {
+        this.name = name;
+        this.parallelism = Math.max(1, parallelism);
+        this.waitTime = new GenStage(name + " Wait:");
+        this.runTime = new GenStage(name + " Run: ");
+        this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 60, TimeUnit.SECONDS, queue, new WorkerFactory(name));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public double getAverageWaitMS() {
+        return waitTime.getAverageMS();
+    }
+
+    public double getAverageRunMS() {
+        return runTime.getAverageMS();
+    }
+
+    public void resetStats() {
+        waitTime.reset();
+        runTime.reset();
+    }
+
+    /**
+     * Un-positioned tasks (typically continuations of other world-gen tasks) are given
+     * the highest priority so that work which has already started can finish.
+     */
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(new Task(command, sequence.getAndIncrement()));
+    }
+
+    /**
+     * Returns an executor view that queues tasks at the priority of the given chunk, relative to the
+     * players of the tracker's level.
+     */
+    public Executor at(int chunkX, int chunkZ, Urgency urgency, PlayerTracker tracker) {
+        return at(chunkX, chunkZ, chunkX, chunkZ, 1, urgency, tracker);
+    }
+
+    /**
+     * Returns an executor view for tasks that produce the size x size block of chunks starting at
+     * originX, originZ. Tasks are queued at the priority of the given chunk and can be promoted via
+     * any chunk in the block.
+     */
+    public Executor at(int chunkX, int chunkZ, int originX, int originZ, int size, Urgency urgency, PlayerTracker tracker) {
+        return command -> {
+            var keys = new PendingKey[size * size];
+            for (int dz = 0, i = 0; dz < size; dz++) {
+                for (int dx = 0; dx < size; dx++, i++) {
+                    keys[i] = new PendingKey(tracker, key(originX + dx, originZ + dz));
+                }
+            }
+
+            var task = new Task(command, sequence.getAndIncrement(), chunkX, chunkZ, urgency, tracker, keys);
+            for (var key : keys) {
+                pending.put(key, task);
+            }
+            executor.execute(task);
+        };
+    }
+
+    /**
+     * Raise a queued speculative task producing the given chunk to the required urgency.
+     */
+    public void promote(int chunkX, int chunkZ, PlayerTracker tracker) {
+        var task = pending.get(new PendingKey(tracker, key(chunkX, chunkZ)));
+        if (task == null || task.urgency == Urgency.REQUIRED) return;
+
+        // Task must be removed before its priority changes so the queue's ordering stays valid
+        if (queue.remove(task)) {
+            task.urgency = Urgency.REQUIRED;
+            task.updatePriority();
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Re-sort the queued tasks around the current player positions.
+     */
+    public void reprioritise() {
+        var tasks = new ArrayList<Runnable>(queue.size());
+        queue.drainTo(tasks);
+
+        for (var task : tasks) {
+            ((Task) task).updatePriority();
+            executor.execute(task);
+        }
+    }
+
+    public void addDebugInfo(List<String> lines) {
+        lines.add(String.format("%s %s/%s active, %s queued, %.2fms wait, %.2fms run",
+                name,
+                getActiveCount(),
+                parallelism,
+                getQueueDepth(),
+                getAverageWaitMS(),
+                getAverageRunMS()));
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerPool{" +
+                "name=" + name +
+                ", parallelism=" + parallelism +
+                ", active=" + getActiveCount() +
+                ", queued=" + getQueueDepth() +
+                '}';
+    }
+
+    private static long key(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | (chunkZ & 0xFFFFFFFFL) << 32;
+    }
+
+    private static int compare(Runnable a, Runnable b) {
+        var taskA = (Task) a;
+        var taskB = (Task) b;
+        int order = Integer.compare(taskA.priority, taskB.priority);
+        return order != 0 ? order : Long.compare(taskA.sequence, taskB.sequence);
+    }
+
+    public enum Urgency {
+        // A chunk that the server is actively waiting on
+        REQUIRED(0),
+        // A chunk that has only been hinted at (eg structure starts/references)
+        SPECULATIVE(8),
+        ;
+
+        private final int penalty;
+
+        Urgency(int penalty) {
+            this.penalty = penalty;
+        }
+    }
+
+    protected record PendingKey(PlayerTracker tracker, long pos) {}
+
+    protected class Task implements Runnable {
+        protected final Runnable task;
+        protected final long sequence;
+        protected final long submitted;
+        protected final boolean positioned;
+        protected final int chunkX;
+        protected final int chunkZ;
+        protected final PlayerTracker tracker;
+        protected final PendingKey[] keys;
+        protected volatile Urgency urgency;
+        protected volatile int priority;
+
+        protected Task(Runnable task, long sequence) {
+            this.task = task;
+            this.sequence = sequence;
+            this.submitted = System.nanoTime();
+            this.positioned = false;
+            this.chunkX = 0;
+            this.chunkZ = 0;
+            this.tracker = null;
+            this.keys = null;
+            this.urgency = Urgency.REQUIRED;
+            this.priority = Integer.MIN_VALUE;
+        }
+
+        protected Task(Runnable task, long sequence, int chunkX, int chunkZ, Urgency urgency, PlayerTracker tracker, PendingKey[] keys) {
+            this.task = task;
+            this.sequence = sequence;
+            this.submitted = System.nanoTime();
+            this.positioned = true;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.tracker = tracker;
+            this.keys = keys;
+            this.urgency = urgency;
+            updatePriority();
+        }
+
+        protected void updatePriority() {
+            if (!positioned) return;
+
+            priority = tracker.getDistance(chunkX, chunkZ) + urgency.penalty;
+        }
+
+        @Override
+        public void run() {
+            if (positioned) {
+                for (var key : keys) {
+                    pending.remove(key, this);
+                }
+            }
+
+            long start = System.nanoTime();
+            waitTime.push(start - submitted);
+            try {
+                task.run();
+            } finally {
+                runTime.push(System.nanoTime() - start);
+            }
+        }
+    }
+
+    protected static class WorkerFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        protected WorkerFactory(String name) {
+            this.name = "TerraForged-" + name.replace(":", "").trim();
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            thread.setUncaughtExceptionHandler((t, e) -> TerraForged.LOG.error("Uncaught exception in thread {}", t.getName(), e));
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.worldgen.util.ChunkUtil;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.IdMapper;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+/**
+ * Compares filling every section's biome container entry-by-entry against filling one container
+ * and bulk-reading its serialized form into the rest.
+ */
+public class BiomeFillBenchmark {
+    private static final int SECTIONS = 24;
+    private static final int ITERATIONS = 100_000;
+
+    public static void main(String[] args) {
+        var registry = new IdMapper<String>();
+        String[] biomes = {"plains", "forest", "river", "beach", "ocean"};
+        for (var biome : biomes) {
+            registry.add(biome);
+        }
+
+        var layer = new String[16];
+        for (int i = 0; i < layer.length; i++) {
+            layer[i] = biomes[(i * 7) % biomes.length];
+        }
+
+        var perEntry = createSections(registry);
+        var copied = createSections(registry);
+        var buffer = new FriendlyByteBuf(Unpooled.buffer());
+
+        // Warm up
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            fillPerEntry(perEntry, layer);
+            fillCopied(copied, layer, buffer);
+        }
+
+        long perEntryTime = 0L;
+        long copiedTime = 0L;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            fillPerEntry(perEntry, layer);
+            long mid = System.nanoTime();
+            fillCopied(copied, layer, buffer);
+            long end = System.nanoTime();
+
+            perEntryTime += mid - start;
+            copiedTime += end - mid;
+        }
+
+        for (int i = 0; i < SECTIONS; i++) {
+            for (int j = 0; j < 64; j++) {
+                int x = j & 3, y = (j >> 2) & 3, z = j >> 4;
+                if (!perEntry[i].get(x, y, z).equals(copied[i].get(x, y, z))) {
+                    throw new IllegalStateException("Mismatch at section " + i + ": " + x + "," + y + "," + z);
+                }
+            }
+        }
+
+        System.out.printf("Per-entry: %.3f us/chunk%n", perEntryTime / 1000.0 / ITERATIONS);
+        System.out.printf("Copied:    %.3f us/chunk%n", copiedTime / 1000.0 / ITERATIONS);
+    }
+
+    private static void fillPerEntry(PalettedContainer<String>[] sections, String[] layer) {
+        for (var section : sections) {
+            ChunkUtil.fillNoiseBiomes(section, layer);
+        }
+    }
+
+    private static void fillCopied(PalettedContainer<String>[] sections, String[] layer, FriendlyByteBuf buffer) {
+        ChunkUtil.fillNoiseBiomes(sections[0], layer);
+
+        buffer.clear();
+        sections[0].write(buffer);
+
+        for (int i = 1; i < sections.length; i++) {
+            ChunkUtil.copyContainer(buffer, sections[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PalettedContainer<String>[] createSections(IdMapper<String> registry) {
+        var sections = new PalettedContainer[SECTIONS];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new PalettedContainer<>(registry, "plains", PalettedContainer.Strategy.SECTION_BIOMES);
+        }
+        return sections;
+    }
+}
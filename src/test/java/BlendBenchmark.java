@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.engine.world.terrain.TerrainType;
+import com.terraforged.mod.util.map.IndexedFloatCache;
+import com.terraforged.mod.util.map.Object2FloatCache;
+import com.terraforged.mod.worldgen.asset.TerrainNoise;
+import com.terraforged.mod.worldgen.terrain.TerrainBlender;
+import com.terraforged.noise.Source;
+import net.minecraft.core.Holder;
+
+/**
+ * Times the blended (region border) columns of the TerrainBlender, and compares the per-column
+ * terrain memo against the identity-map cache it replaced using the same clear/get/put pattern.
+ */
+public class BlendBenchmark {
+    private static final int SEED = 6785;
+    private static final int TERRAINS = 12;
+    private static final int SIZE = 2048;
+    private static final int ITERATIONS = 20;
+    private static final float BLENDING = 0.5F;
+
+    public static void main(String[] args) {
+        var noises = new TerrainNoise[TERRAINS];
+        for (int i = 0; i < noises.length; i++) {
+            var type = new com.terraforged.mod.worldgen.asset.TerrainType("terrain_" + i, TerrainType.FLATS);
+            noises[i] = new TerrainNoise(Holder.direct(type), 1F, Source.simplex(SEED + i, 200, 2));
+        }
+
+        var terrainBlender = new TerrainBlender(SEED, 400, 0.8F, BLENDING, noises);
+        var blender = terrainBlender.getBlenderResource();
+
+        // Collect the columns that fall within a blend zone
+        int count = 0;
+        var border = new float[SIZE * SIZE * 2];
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                terrainBlender.getValue(x, z, blender);
+                if (!blender.isCentre(BLENDING)) {
+                    border[count++] = x;
+                    border[count++] = z;
+                }
+            }
+        }
+        System.out.printf("Border columns: %d of %d%n", count / 2, SIZE * SIZE);
+
+        float sum = 0F;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < count; j += 2) {
+                sum += terrainBlender.getValue(border[j], border[j + 1], blender);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("Blended columns: %.2fns/column (checksum %.2f)%n", best / (count / 2.0), sum);
+
+        memo(noises, count / 2);
+    }
+
+    private static void memo(TerrainNoise[] noises, int columns) {
+        var identityCache = new Object2FloatCache<TerrainNoise>(9);
+        var indexedCache = new IndexedFloatCache(noises.length);
+        var keys = new int[columns * 3];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (int) ((i * 0x9E3779B9L >>> 8) % noises.length);
+        }
+
+        float sum = 0F;
+        long identityTime = Long.MAX_VALUE;
+        long indexedTime = Long.MAX_VALUE;
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < keys.length; i += 3) {
+                identityCache.clear();
+                for (int j = i; j < i + 3; j++) {
+                    var terrain = noises[keys[j]];
+                    float value = identityCache.get(terrain);
+                    if (Float.isNaN(value)) {
+                        value = j;
+                        identityCache.put(terrain, value);
+                    }
+                    sum += value;
+                }
+            }
+            identityTime = Math.min(identityTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < keys.length; i += 3) {
+                indexedCache.clear();
+                for (int j = i; j < i + 3; j++) {
+                    int terrain = keys[j];
+                    float value = indexedCache.get(terrain);
+                    if (Float.isNaN(value)) {
+                        value = j;
+                        indexedCache.put(terrain, value);
+                    }
+                    sum += value;
+                }
+            }
+            indexedTime = Math.min(indexedTime, System.nanoTime() - start);
+        }
+
+        System.out.printf("Memo: identity map %.2fns/column, indexed %.2fns/column (checksum %.2f)%n",
+                identityTime / (double) columns,
+                indexedTime / (double) columns,
+                sum);
+    }
+}
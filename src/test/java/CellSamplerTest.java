@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.worldgen.terrain.CellSampler;
+import com.terraforged.mod.worldgen.terrain.TerrainBlender;
+
+import java.util.Random;
+
+/**
+ * Checks the vectorized cell sampler against the scalar one. Run with --add-modules jdk.incubator.vector
+ */
+public class CellSamplerTest {
+    private static final int SEED = 21491124;
+    private static final int ROWS = 10_000;
+    private static final int LENGTH = 34;
+    private static final float TOLERANCE = 1E-6F;
+
+    public static void main(String[] args) {
+        var scalar = CellSampler.scalar();
+        var vector = CellSampler.create();
+        if (vector == scalar) {
+            throw new AssertionError("Vector cell sampler unavailable, run with --add-modules jdk.incubator.vector");
+        }
+
+        var scalarResult = new Result();
+        var vectorResult = new Result();
+
+        var random = new Random(SEED);
+        var x = new float[LENGTH];
+        var z = new float[LENGTH];
+
+        int mismatches = 0;
+        float maxError = 0F;
+        for (int row = 0; row < ROWS; row++) {
+            // Region-scale coords: a row spans a fraction of a cell, like real warped rows do
+            float startX = (random.nextFloat() - 0.5F) * 10_000F;
+            float rowZ = (random.nextFloat() - 0.5F) * 10_000F;
+            for (int i = 0; i < LENGTH; i++) {
+                x[i] = startX + i / 800F;
+                z[i] = rowZ + random.nextFloat() * 0.01F;
+            }
+
+            scalarResult.sample(scalar, x, z);
+            vectorResult.sample(vector, x, z);
+
+            for (int i = 0; i < LENGTH; i++) {
+                var a = scalarResult.get(i);
+                var b = vectorResult.get(i);
+                if (a.nearest != b.nearest || a.nearest2 != b.nearest2) {
+                    mismatches++;
+                }
+                maxError = Math.max(maxError, Math.abs(a.distance - b.distance));
+            }
+        }
+
+        System.out.println("Sampler: " + vector.getName());
+        System.out.println("Index mismatches: " + mismatches);
+        System.out.println("Max distance error: " + maxError);
+
+        if (mismatches > 0 || maxError > TOLERANCE) {
+            throw new AssertionError("Vector cell sampler diverges from scalar");
+        }
+    }
+
+    private static class Result {
+        private final TerrainBlender.Blender resource = new TerrainBlender.Blender();
+        private final Point point = new Point();
+
+        private void sample(CellSampler sampler, float[] x, float[] z) {
+            resource.ensureCapacity(x.length);
+            sampler.sample(SEED, 0.8F, x, z, x.length, resource);
+        }
+
+        private Point get(int i) {
+            resource.load(i);
+            point.nearest = resource.getClosestIndex();
+            point.nearest2 = resource.getClosestIndex2();
+            point.distance = resource.getDistance(point.nearest);
+            return point;
+        }
+    }
+
+    private static class Point {
+        private int nearest;
+        private int nearest2;
+        private float distance;
+    }
+}
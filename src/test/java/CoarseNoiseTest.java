@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.data.ModTerrains;
+import com.terraforged.mod.worldgen.noise.CoarseLayers;
+import com.terraforged.mod.worldgen.noise.NoiseGenerator;
+import com.terraforged.mod.worldgen.noise.NoiseRow;
+import com.terraforged.mod.worldgen.terrain.TerrainLevels;
+
+/**
+ * Measures the height error introduced by interpolating each coarse noise layer at a range of
+ * steps, relative to sampling every column.
+ */
+public class CoarseNoiseTest {
+    private static final int SEED = 6785;
+    private static final int CHUNKS = 1024;
+    private static final int LENGTH = 18;
+    private static final int[] STEPS = {2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        var levels = new TerrainLevels();
+        var noise = new NoiseGenerator(SEED, levels, ModTerrains.Factory.getDefault(null));
+        var exact = sample(noise, null);
+
+        for (var bicubic : new boolean[]{false, true}) {
+            for (int step : STEPS) {
+                report(noise, exact, "continent", new CoarseLayers.Settings(step, 1, 1, 1, bicubic));
+                report(noise, exact, "base", new CoarseLayers.Settings(1, step, 1, 1, bicubic));
+                report(noise, exact, "ocean", new CoarseLayers.Settings(1, 1, step, 1, bicubic));
+                report(noise, exact, "warp", new CoarseLayers.Settings(1, 1, 1, step, bicubic));
+            }
+        }
+    }
+
+    private static void report(NoiseGenerator noise, float[] exact, String layer, CoarseLayers.Settings settings) {
+        var result = sample(noise, settings);
+
+        double sum = 0;
+        float max = 0F;
+        for (int i = 0; i < exact.length; i++) {
+            float error = Math.abs(exact[i] - result[i]);
+            max = Math.max(max, error);
+            sum += error;
+        }
+
+        // Errors expressed in blocks of the default world height
+        float scale = new TerrainLevels().maxY;
+        System.out.printf("%-9s step=%-2d %-8s mean=%.4f max=%.4f (blocks)%n",
+                layer,
+                Math.max(Math.max(settings.continentStep(), settings.baseStep()), Math.max(settings.oceanStep(), settings.warpStep())),
+                settings.bicubic() ? "bicubic" : "bilinear",
+                sum / exact.length * scale,
+                max * scale);
+    }
+
+    private static float[] sample(NoiseGenerator noise, CoarseLayers.Settings settings) {
+        var row = new NoiseRow();
+        row.setCoarse(settings == null ? null : new CoarseLayers(settings));
+
+        var blender = noise.getBlenderResource();
+        var output = new float[CHUNKS * LENGTH * LENGTH];
+
+        for (int chunk = 0, i = 0; chunk < CHUNKS; chunk++) {
+            int startX = ((chunk & 31) << 4) * 7;
+            int startZ = ((chunk >> 5) << 4) * 7;
+            noise.prepareCoarse(startX, startZ, LENGTH, row);
+
+            for (int dz = 0; dz < LENGTH; dz++) {
+                noise.sampleTerrainRow(startX, startZ + dz, LENGTH, row, blender);
+
+                for (int dx = 0; dx < LENGTH; dx++) {
+                    output[i++] = row.getSample(dx).heightNoise;
+                }
+            }
+        }
+
+        return output;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.util.map.Palette;
+import com.terraforged.mod.util.map.PaletteMap;
+import com.terraforged.mod.util.map.QuantizedFloatMap;
+
+import java.util.Random;
+
+/**
+ * Round-trips random values through the compact TerrainData maps.
+ */
+public class CompactMapTest {
+    private static final int SEED = 8913421;
+    private static final int ROUNDS = 1_000;
+    private static final float MIN_Y = -64;
+    private static final float MAX_Y = 320;
+
+    public static void main(String[] args) {
+        var random = new Random(SEED);
+
+        testFixed16(random);
+        testUnit8(random);
+        testPalette(random);
+
+        System.out.println("OK");
+    }
+
+    private static void testFixed16(Random random) {
+        var map = QuantizedFloatMap.fixed16(MIN_Y, MAX_Y);
+        float step = 1F / 128F;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < 256; i++) {
+                float value = MIN_Y + random.nextFloat() * (MAX_Y - MIN_Y);
+                map.set(i, value);
+
+                float result = map.get(i);
+                // Truncated so the block height read back always matches the one written
+                check((int) Math.floor(result) == (int) Math.floor(value), "fixed16 height", value, result);
+                check(value - result >= 0 && value - result < step, "fixed16 error", value, result);
+            }
+        }
+
+        // Whole numbers & the range limits are exact, values outside the range are clamped
+        map.set(0, 64F);
+        check(map.get(0) == 64F, "fixed16 whole", 64F, map.get(0));
+        map.set(0, MIN_Y);
+        check(map.get(0) == MIN_Y, "fixed16 min", MIN_Y, map.get(0));
+        map.set(0, MAX_Y);
+        check(map.get(0) == MAX_Y, "fixed16 max", MAX_Y, map.get(0));
+        map.set(0, MIN_Y - 10);
+        check(map.get(0) == MIN_Y, "fixed16 clamp", MIN_Y - 10, map.get(0));
+    }
+
+    private static void testUnit8(Random random) {
+        var map = QuantizedFloatMap.unit8(0F, 1F);
+        float tolerance = 0.5F / 255F + 1E-6F;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < 256; i++) {
+                float value = random.nextFloat();
+                map.set(i, value);
+
+                float result = map.get(i);
+                check(Math.abs(result - value) <= tolerance, "unit8 error", value, result);
+            }
+        }
+
+        map.set(0, 1F);
+        check(map.get(0) == 1F, "unit8 max", 1F, map.get(0));
+        map.set(0, 2F);
+        check(map.get(0) == 1F, "unit8 clamp", 2F, map.get(0));
+    }
+
+    private static void testPalette(Random random) {
+        // More distinct values than the palette can hold so that the map has to fall back
+        var palette = new Palette<>(8, "none", String[]::new);
+        var map = new PaletteMap<>(palette, String[]::new);
+        var expected = new String[256];
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < 256; i++) {
+                expected[i] = "value" + random.nextInt(round < ROUNDS / 2 ? 4 : 32);
+                map.set(i, expected[i]);
+            }
+
+            for (int i = 0; i < 256; i++) {
+                if (!expected[i].equals(map.get(i))) {
+                    throw new AssertionError("palette: expected " + expected[i] + " got " + map.get(i));
+                }
+            }
+        }
+
+        if (!palette.isFull()) {
+            throw new AssertionError("palette: expected to overflow");
+        }
+    }
+
+    private static void check(boolean condition, String name, float value, float result) {
+        if (!condition) {
+            throw new AssertionError(name + ": wrote " + value + " read " + result);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.worldgen.noise.continent.ContinentGenerator;
+import com.terraforged.noise.Source;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Times ContinentGenerator.getEdgeValue over rows of columns at continent scale and asserts that the
+ * hot path does not allocate once warmed up.
+ */
+public class ContinentEdgeBenchmark {
+    private static final int SEED = 6785;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+    private static final int SIZE = 512;
+    private static final float FREQUENCY = 1F / 3000F;
+
+    public static void main(String[] args) {
+        var generator = new ContinentGenerator(SEED, 0.7f, 0.35f, Source.ZERO);
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        float sum = 0F;
+        for (int i = 0; i < WARMUP; i++) {
+            sum += sample(generator, i);
+        }
+
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sum += sample(generator, WARMUP + i);
+        }
+        long time = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+
+        long samples = (long) ITERATIONS * SIZE * SIZE;
+        System.out.printf("getEdgeValue: %.2fns/sample, %.4f bytes/sample (checksum %.4f)%n",
+                time / (double) samples,
+                allocated / (double) samples,
+                sum);
+
+        // Allow for incidental allocations by the timer/profiler but nothing proportional to samples
+        if (allocated > 64 * 1024) {
+            throw new AssertionError("getEdgeValue allocated " + allocated + " bytes over " + samples + " samples");
+        }
+    }
+
+    private static float sample(ContinentGenerator generator, int iteration) {
+        float sum = 0F;
+        int offset = iteration * SIZE;
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                sum += generator.getEdgeValue((offset + x) * FREQUENCY, z * FREQUENCY);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.engine.util.FastRandom;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionFilter;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionQuality;
+import com.terraforged.mod.worldgen.noise.erosion.IErosionFilter;
+import com.terraforged.mod.worldgen.noise.erosion.NoiseTileSize;
+import com.terraforged.noise.Module;
+import com.terraforged.noise.Source;
+
+/**
+ * Times the erosion filter of each quality tier over a fixed tile of noise, reporting the best time
+ * per tile after a warm-up, along with a checksum of the eroded heights.
+ */
+public class ErosionBenchmark {
+    private static final int SEED = 6785;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) {
+        var noise = Source.simplex(SEED, 200, 4).warp(SEED + 1, 60, 2, 30);
+
+        for (var quality : ErosionQuality.values()) {
+            var size = quality.getTileSize(new NoiseTileSize(2));
+            var filter = quality.createFilter(SEED, size);
+            benchmark(quality.name(), filter, size, createTile(size, noise));
+        }
+    }
+
+    private static void benchmark(String name, IErosionFilter filter, NoiseTileSize size, float[] tile) {
+        var map = new float[tile.length];
+        var resource = new ErosionFilter.Resource();
+        var random = new FastRandom();
+
+        for (int i = 0; i < WARMUP; i++) {
+            System.arraycopy(tile, 0, map, 0, tile.length);
+            filter.apply(map, 0, 0, size, resource, random);
+        }
+
+        long best = Long.MAX_VALUE;
+        long total = 0L;
+        for (int i = 0; i < ITERATIONS; i++) {
+            System.arraycopy(tile, 0, map, 0, tile.length);
+
+            long start = System.nanoTime();
+            filter.apply(map, 0, 0, size, resource, random);
+            long time = System.nanoTime() - start;
+
+            best = Math.min(best, time);
+            total += time;
+        }
+
+        double checksum = 0;
+        for (float value : map) {
+            checksum += value;
+        }
+
+        System.out.printf("%-8s tile=%dx%d best=%.3fms mean=%.3fms (checksum %.6f)%n",
+                name,
+                size.regionLength,
+                size.regionLength,
+                best / 1e6,
+                total / 1e6 / ITERATIONS,
+                checksum);
+    }
+
+    static float[] createTile(NoiseTileSize size, Module noise) {
+        var tile = new float[size.regionSize];
+        for (int z = 0; z < size.regionLength; z++) {
+            for (int x = 0; x < size.regionLength; x++) {
+                tile[size.indexOf(x, z)] = noise.getValue(x + size.min, z + size.min);
+            }
+        }
+        return tile;
+    }
+}
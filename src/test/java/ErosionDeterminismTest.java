@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.engine.util.FastRandom;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionFilter;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionQuality;
+import com.terraforged.mod.worldgen.noise.erosion.IErosionFilter;
+import com.terraforged.mod.worldgen.noise.erosion.NoiseTileSize;
+import com.terraforged.noise.Module;
+import com.terraforged.noise.Source;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Checks that each erosion quality tier produces bit-identical output when the same chunk is eroded
+ * twice with the same seed: once on this thread with a reused resource, and once on another thread
+ * with fresh resources.
+ */
+public class ErosionDeterminismTest {
+    private static final int SEED = 6785;
+    private static final int CHUNKS = 16;
+
+    public static void main(String[] args) {
+        var noise = Source.simplex(SEED, 200, 4).warp(SEED + 1, 60, 2, 30);
+        var resource = new ErosionFilter.Resource();
+        var random = new FastRandom();
+
+        int mismatches = 0;
+        for (var quality : ErosionQuality.values()) {
+            var size = quality.getTileSize(new NoiseTileSize(2));
+            var filter = quality.createFilter(SEED, size);
+
+            for (int i = 0; i < CHUNKS; i++) {
+                int chunkX = (i & 3) * 7 - 10;
+                int chunkZ = (i >> 2) * 5 - 8;
+                var original = createTile(size, noise, chunkX, chunkZ);
+
+                var first = original.clone();
+                filter.apply(first, chunkX, chunkZ, size, resource, random);
+
+                var second = CompletableFuture.supplyAsync(() -> erode(filter, original, chunkX, chunkZ, size)).join();
+
+                if (!Arrays.equals(first, second)) {
+                    System.out.printf("Mismatch: quality=%s chunk=%s,%s%n", quality, chunkX, chunkZ);
+                    mismatches++;
+                }
+            }
+        }
+
+        System.out.println("Mismatches: " + mismatches);
+
+        if (mismatches > 0) {
+            throw new AssertionError("Erosion output differs between runs");
+        }
+    }
+
+    private static float[] erode(IErosionFilter filter, float[] original, int chunkX, int chunkZ, NoiseTileSize size) {
+        var map = original.clone();
+        filter.apply(map, chunkX, chunkZ, size, new ErosionFilter.Resource(), new FastRandom());
+        return map;
+    }
+
+    private static float[] createTile(NoiseTileSize size, Module noise, int chunkX, int chunkZ) {
+        int startX = (chunkX << 4) + size.min;
+        int startZ = (chunkZ << 4) + size.min;
+
+        var tile = new float[size.regionSize];
+        for (int z = 0; z < size.regionLength; z++) {
+            for (int x = 0; x < size.regionLength; x++) {
+                tile[size.indexOf(x, z)] = noise.getValue(startX + x, startZ + z);
+            }
+        }
+        return tile;
+    }
+}
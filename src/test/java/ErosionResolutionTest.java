@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.engine.settings.FilterSettings;
+import com.terraforged.engine.util.FastRandom;
+import com.terraforged.mod.worldgen.noise.erosion.DownsampledErosionFilter;
+import com.terraforged.mod.worldgen.noise.erosion.ErosionFilter;
+import com.terraforged.mod.worldgen.noise.erosion.NoiseTileSize;
+import com.terraforged.mod.worldgen.terrain.TerrainLevels;
+import com.terraforged.noise.Module;
+import com.terraforged.noise.Source;
+
+/**
+ * Compares half resolution erosion against full resolution erosion over a set of tiles, reporting
+ * the time per tile, the error in the eroded heights (in blocks) and how well the two height deltas
+ * correlate.
+ */
+public class ErosionResolutionTest {
+    private static final int SEED = 6785;
+    private static final int TILES = 64;
+    private static final int RADIUS = 7;
+
+    public static void main(String[] args) {
+        var size = new NoiseTileSize(2);
+        var full = new ErosionFilter(SEED, size.regionLength, RADIUS, settings());
+        var half = new DownsampledErosionFilter(SEED, size, RADIUS, settings());
+        var noise = Source.simplex(SEED, 200, 4).warp(SEED + 1, 60, 2, 30);
+        float scale = new TerrainLevels().maxY;
+
+        var fullMap = new float[size.regionSize];
+        var halfMap = new float[size.regionSize];
+        var resource = new ErosionFilter.Resource();
+        var random = new FastRandom();
+
+        long fullTime = 0L;
+        long halfTime = 0L;
+        double sumError2 = 0;
+        double maxError = 0;
+        double sumFull = 0, sumHalf = 0, sumFull2 = 0, sumHalf2 = 0, sumProduct = 0;
+        long count = 0;
+
+        for (int tile = 0; tile < TILES; tile++) {
+            int chunkX = (tile & 7) * size.chunkLength;
+            int chunkZ = (tile >> 3) * size.chunkLength;
+            var original = createTile(size, noise, chunkX, chunkZ);
+
+            System.arraycopy(original, 0, fullMap, 0, original.length);
+            long start = System.nanoTime();
+            full.apply(fullMap, chunkX, chunkZ, size, resource, random);
+            fullTime += System.nanoTime() - start;
+
+            System.arraycopy(original, 0, halfMap, 0, original.length);
+            start = System.nanoTime();
+            half.apply(halfMap, chunkX, chunkZ, size, resource, random);
+            halfTime += System.nanoTime() - start;
+
+            for (int i = 0; i < original.length; i++) {
+                double fullDelta = fullMap[i] - original[i];
+                double halfDelta = halfMap[i] - original[i];
+                double error = Math.abs(fullMap[i] - halfMap[i]);
+
+                sumError2 += error * error;
+                maxError = Math.max(maxError, error);
+
+                sumFull += fullDelta;
+                sumHalf += halfDelta;
+                sumFull2 += fullDelta * fullDelta;
+                sumHalf2 += halfDelta * halfDelta;
+                sumProduct += fullDelta * halfDelta;
+                count++;
+            }
+        }
+
+        double covariance = sumProduct / count - (sumFull / count) * (sumHalf / count);
+        double varFull = sumFull2 / count - (sumFull / count) * (sumFull / count);
+        double varHalf = sumHalf2 / count - (sumHalf / count) * (sumHalf / count);
+
+        System.out.printf("Full resolution: %.3fms/tile%n", fullTime / 1e6 / TILES);
+        System.out.printf("Half resolution: %.3fms/tile%n", halfTime / 1e6 / TILES);
+        System.out.printf("Height error:    rmse=%.3f max=%.3f (blocks)%n", Math.sqrt(sumError2 / count) * scale, maxError * scale);
+        System.out.printf("Delta rms:       full=%.3f half=%.3f (blocks)%n", Math.sqrt(sumFull2 / count) * scale, Math.sqrt(sumHalf2 / count) * scale);
+        System.out.printf("Delta correlation: %.4f%n", covariance / Math.sqrt(varFull * varHalf));
+    }
+
+    private static FilterSettings.Erosion settings() {
+        var settings = new FilterSettings.Erosion();
+        settings.dropletsPerChunk = 350;
+        return settings;
+    }
+
+    private static float[] createTile(NoiseTileSize size, Module noise, int chunkX, int chunkZ) {
+        int startX = (chunkX << 4) + size.min;
+        int startZ = (chunkZ << 4) + size.min;
+
+        var tile = new float[size.regionSize];
+        for (int z = 0; z < size.regionLength; z++) {
+            for (int x = 0; x < size.regionLength; x++) {
+                tile[size.indexOf(x, z)] = noise.getValue(startX + x, startZ + z);
+            }
+        }
+        return tile;
+    }
+}
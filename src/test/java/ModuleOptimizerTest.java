@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.data.ModTerrains;
+import com.terraforged.mod.worldgen.noise.compile.ModuleOptimizer;
+import com.terraforged.noise.Module;
+
+/**
+ * Checks the optimized terrain graphs against the originals and that they are not slower to sample.
+ * Every terrain is sampled at each position, as when blending, so that shared sources are reused.
+ */
+public class ModuleOptimizerTest {
+    private static final long SEED = 6785;
+    private static final int SIZE = 256;
+    private static final int ROUNDS = 5;
+    private static final float TOLERANCE = 1E-4F;
+    // Allowance for timing noise between otherwise identical runs
+    private static final double MAX_SLOWDOWN = 1.1;
+
+    public static void main(String[] args) {
+        var terrains = ModTerrains.Factory.getDefault(null);
+
+        var original = new Module[terrains.length];
+        for (int i = 0; i < original.length; i++) {
+            original[i] = terrains[i].withSeed(SEED).noise();
+        }
+
+        var optimized = ModuleOptimizer.optimizeAll(original);
+
+        float maxError = 0F;
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                for (int i = 0; i < original.length; i++) {
+                    float expected = original[i].getValue(x * 3.1F, z * 3.1F);
+                    float actual = optimized[i].getValue(x * 3.1F, z * 3.1F);
+                    maxError = Math.max(maxError, Math.abs(expected - actual));
+                }
+            }
+        }
+
+        // Alternate the runs & keep the best of each to reduce the effect of JIT & GC pauses
+        long originalTime = Long.MAX_VALUE;
+        long optimizedTime = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            originalTime = Math.min(originalTime, time(original));
+            optimizedTime = Math.min(optimizedTime, time(optimized));
+        }
+
+        System.out.printf("error=%.2e original=%dms optimized=%dms%n",
+                maxError,
+                originalTime / 1_000_000,
+                optimizedTime / 1_000_000);
+
+        if (maxError > TOLERANCE) {
+            throw new AssertionError("Optimized noise diverges: " + maxError);
+        }
+
+        if (optimizedTime > originalTime * MAX_SLOWDOWN) {
+            throw new AssertionError("Optimized noise is slower: " + optimizedTime + "ns vs " + originalTime + "ns");
+        }
+    }
+
+    private static long time(Module[] modules) {
+        float sum = 0F;
+        long start = System.nanoTime();
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                for (var module : modules) {
+                    sum += module.getValue(x * 3.1F, z * 3.1F);
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+
+        // Keep the result live so the loop isn't eliminated
+        if (sum == Float.MIN_VALUE) System.out.print("");
+
+        return time;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.data.ModTerrains;
+import com.terraforged.mod.worldgen.noise.compile.ModuleOptimizer;
+import com.terraforged.mod.worldgen.noise.compile.NoiseCompiler;
+import com.terraforged.noise.Module;
+
+/**
+ * Differential test of compiled noise graphs (with & without optimization, marked '*') against
+ * the interpreted module trees, plus a rough timing of each.
+ */
+public class NoiseCompilerTest {
+    private static final long SEED = 6785;
+    private static final int SIZE = 512;
+    private static final float TOLERANCE = 1E-5F;
+    private static final float OPTIMIZED_TOLERANCE = 1E-4F;
+
+    public static void main(String[] args) {
+        var terrains = ModTerrains.Factory.getDefault(null);
+
+        for (var terrain : terrains) {
+            var interpreted = terrain.withSeed(SEED).noise();
+            var name = terrain.terrain().getName();
+
+            test(name, interpreted, NoiseCompiler.compile(interpreted));
+
+            // Optimized graphs reference shared modules which the compiler must bind as leaves
+            var optimized = ModuleOptimizer.optimize(interpreted);
+            var compiled = NoiseCompiler.compile(optimized);
+            if (compiled == optimized) {
+                throw new AssertionError("Optimized noise was not compiled for " + name);
+            }
+            test(name + "*", interpreted, compiled);
+        }
+    }
+
+    private static void test(String name, Module interpreted, Module compiled) {
+        float maxError = 0F;
+        long interpretedTime = 0L;
+        long compiledTime = 0L;
+        for (int z = 0; z < SIZE; z++) {
+            for (int x = 0; x < SIZE; x++) {
+                long start = System.nanoTime();
+                float expected = interpreted.getValue(x * 3.1F, z * 3.1F);
+                long mid = System.nanoTime();
+                float actual = compiled.getValue(x * 3.1F, z * 3.1F);
+                long end = System.nanoTime();
+
+                interpretedTime += mid - start;
+                compiledTime += end - mid;
+                maxError = Math.max(maxError, Math.abs(expected - actual));
+            }
+        }
+
+        System.out.printf("%-16s compiled=%-5s error=%.2e interpreted=%dms compiled=%dms%n",
+                name,
+                compiled != interpreted,
+                maxError,
+                interpretedTime / 1_000_000,
+                compiledTime / 1_000_000);
+
+        // Optimized graphs reorder float arithmetic so are compared at the optimizer's tolerance
+        float tolerance = name.endsWith("*") ? OPTIMIZED_TOLERANCE : TOLERANCE;
+        if (maxError > tolerance) {
+            throw new AssertionError("Compiled noise diverges for " + name);
+        }
+    }
+}
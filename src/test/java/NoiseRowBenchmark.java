@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.terraforged.mod.data.ModTerrains;
+import com.terraforged.mod.worldgen.noise.NoiseGenerator;
+import com.terraforged.mod.worldgen.noise.NoiseRow;
+import com.terraforged.mod.worldgen.noise.NoiseSample;
+import com.terraforged.mod.worldgen.terrain.TerrainLevels;
+
+/**
+ * Compares per-point sampling of chunk-sized grids against row sampling, and checks that both
+ * produce the same heights, rivers & terrain types.
+ */
+public class NoiseRowBenchmark {
+    private static final int SEED = 6785;
+    private static final int CHUNKS = 4096;
+    private static final int LENGTH = 18;
+
+    public static void main(String[] args) {
+        var levels = new TerrainLevels();
+        var noise = new NoiseGenerator(SEED, levels, ModTerrains.Factory.getDefault(null));
+        var riverCache = noise.getContinent().getRiverCache();
+        var blender = noise.getBlenderResource();
+        var sample = new NoiseSample();
+        var row = new NoiseRow();
+
+        // Warm up & verify
+        for (int chunk = 0; chunk < CHUNKS / 4; chunk++) {
+            int startX = (chunk & 63) << 4;
+            int startZ = (chunk >> 6) << 4;
+            for (int dz = 0; dz < LENGTH; dz++) {
+                noise.sampleRow(startX, startZ + dz, LENGTH, row, riverCache, blender);
+
+                for (int dx = 0; dx < LENGTH; dx++) {
+                    noise.sample(startX + dx, startZ + dz, sample, riverCache, blender);
+                    var rowSample = row.getSample(dx);
+
+                    if (sample.heightNoise != rowSample.heightNoise || sample.riverNoise != rowSample.riverNoise || sample.terrainType != rowSample.terrainType) {
+                        throw new IllegalStateException("Mismatch at " + (startX + dx) + "," + (startZ + dz));
+                    }
+                }
+            }
+        }
+
+        long scalarTime = 0L;
+        long rowTime = 0L;
+        float checksum = 0F;
+
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            int startX = (chunk & 63) << 4;
+            int startZ = (64 + (chunk >> 6)) << 4;
+
+            long start = System.nanoTime();
+            for (int dz = 0; dz < LENGTH; dz++) {
+                for (int dx = 0; dx < LENGTH; dx++) {
+                    checksum += noise.sample(startX + dx, startZ + dz, sample, riverCache, blender).heightNoise;
+                }
+            }
+            long mid = System.nanoTime();
+            for (int dz = 0; dz < LENGTH; dz++) {
+                noise.sampleRow(startX, startZ + dz, LENGTH, row, riverCache, blender);
+                checksum -= row.getSample(0).heightNoise;
+            }
+            long end = System.nanoTime();
+
+            scalarTime += mid - start;
+            rowTime += end - mid;
+        }
+
+        System.out.printf("Scalar: %.3f us/chunk%n", scalarTime / 1000.0 / CHUNKS);
+        System.out.printf("Row:    %.3f us/chunk%n", rowTime / 1000.0 / CHUNKS);
+        System.out.println("Checksum: " + checksum);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.mod.worldgen.terrain;
+
+import com.terraforged.mod.util.MathUtil;
+import com.terraforged.noise.util.NoiseUtil;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized cell search. Consecutive points of a row usually fall within the same 3x3 cell window,
+ * so the window's jittered feature points are hashed once and the distances from up to one vector's
+ * worth of points to each feature point are computed lane-wise.
+ * <p>
+ * The nearest/second nearest selection mirrors the scalar comparison order exactly so both
+ * implementations select the same cells.
+ */
+public class VectorCellSampler implements CellSampler {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private final ThreadLocal<Resource> localResource = ThreadLocal.withInitial(Resource::new);
+
+    @Override
+    public void sample(int seed, float jitter, float[] x, float[] z, int count, TerrainBlender.Blender blender) {
+        var resource = localResource.get();
+        int lanes = FLOATS.length();
+
+        for (int i = 0; i < count; ) {
+            int maxX = NoiseUtil.floor(x[i]) + 1;
+            int maxZ = NoiseUtil.floor(z[i]) + 1;
+
+            int end = i + 1;
+            while (end < count && end - i < lanes && NoiseUtil.floor(x[end]) + 1 == maxX && NoiseUtil.floor(z[end]) + 1 == maxZ) {
+                end++;
+            }
+
+            resource.init(seed, jitter, maxX, maxZ);
+            sample(x, z, i, end, resource, blender);
+            i = end;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "vector(" + FLOATS.length() + ")";
+    }
+
+    private static void sample(float[] x, float[] z, int start, int end, Resource resource, TerrainBlender.Blender blender) {
+        var mask = FLOATS.indexInRange(start, end);
+        var px = FloatVector.fromArray(FLOATS, x, start, mask);
+        var pz = FloatVector.fromArray(FLOATS, z, start, mask);
+
+        var nearest = FloatVector.broadcast(FLOATS, Float.MAX_VALUE);
+        var nearest2 = FloatVector.broadcast(FLOATS, Float.MAX_VALUE);
+        var nearestIndex = IntVector.broadcast(INTS, -1);
+        var nearestIndex2 = IntVector.broadcast(INTS, -1);
+
+        for (int i = 0; i < 9; i++) {
+            var dx = FloatVector.broadcast(FLOATS, resource.cellX[i]).sub(px);
+            var dz = FloatVector.broadcast(FLOATS, resource.cellZ[i]).sub(pz);
+            var dist2 = dx.mul(dx).add(dz.mul(dz));
+            dist2.intoArray(resource.distances, i * FLOATS.length());
+
+            var index = IntVector.broadcast(INTS, i);
+            var closer = dist2.compare(VectorOperators.LT, nearest);
+            var closer2 = dist2.compare(VectorOperators.LT, nearest2).andNot(closer);
+            var closerInts = closer.cast(INTS);
+            var closer2Ints = closer2.cast(INTS);
+
+            // dist < nearest: nearest moves to second place. else if dist < nearest2: replace second place
+            nearest2 = nearest2.blend(nearest, closer).blend(dist2, closer2);
+            nearestIndex2 = nearestIndex2.blend(nearestIndex, closerInts).blend(index, closer2Ints);
+            nearest = nearest.blend(dist2, closer);
+            nearestIndex = nearestIndex.blend(index, closerInts);
+        }
+
+        nearestIndex.intoArray(resource.closest, 0);
+        nearestIndex2.intoArray(resource.closest2, 0);
+
+        int lanes = FLOATS.length();
+        for (int lane = 0, point = start; point < end; lane++, point++) {
+            for (int i = 0; i < 9; i++) {
+                blender.hashes[i] = resource.hashes[i];
+                blender.distances[i] = resource.distances[i * lanes + lane];
+            }
+            blender.closestIndex = resource.closest[lane];
+            blender.closestIndex2 = resource.closest2[lane];
+            blender.store(point);
+        }
+    }
+
+    private static class Resource {
+        private final int[] hashes = new int[9];
+        private final float[] cellX = new float[9];
+        private final float[] cellZ = new float[9];
+        private final float[] distances = new float[9 * FLOATS.length()];
+        private final int[] closest = new int[INTS.length()];
+        private final int[] closest2 = new int[INTS.length()];
+
+        private void init(int seed, float jitter, int maxX, int maxZ) {
+            for (int cz = maxZ - 2, i = 0; cz <= maxZ; cz++) {
+                for (int cx = maxX - 2; cx <= maxX; cx++, i++) {
+                    int hash = NoiseUtil.hash2D(seed, cx, cz);
+                    hashes[i] = hash;
+                    cellX[i] = cx + MathUtil.rand(hash, NoiseUtil.X_PRIME) * jitter;
+                    cellZ[i] = cz + MathUtil.rand(hash, NoiseUtil.Y_PRIME) * jitter;
+                }
+            }
+        }
+    }
+}